@@ -0,0 +1,69 @@
+package com.agifans.agile;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the drawing of an AnimatedObject's cel over the synthetic PICTURE, the 
+ * restoring of its background, and the blitting of it to the screen pixels, along with
+ * the combination of all three that happens for each object on every animation cycle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnimatedObjectBenchmark {
+
+    private BenchmarkGame benchmarkGame;
+
+    private AnimatedObject aniObj;
+
+    @Setup
+    public void setup() {
+        benchmarkGame = new BenchmarkGame();
+        benchmarkGame.drawPicture(1);
+
+        aniObj = benchmarkGame.state.animatedObjects[1];
+        aniObj.setView(0);
+        aniObj.setLoop(0);
+        aniObj.setCel(0);
+        aniObj.x = 60;
+        aniObj.y = 100;
+        aniObj.prevX = aniObj.x;
+        aniObj.prevY = aniObj.y;
+        aniObj.priority = 15;
+        aniObj.draw();
+    }
+
+    @Benchmark
+    public void draw() {
+        aniObj.draw();
+    }
+
+    @Benchmark
+    public void restoreBackPixels() {
+        aniObj.restoreBackPixels();
+    }
+
+    @Benchmark
+    public void show() {
+        aniObj.show(benchmarkGame.pixelData);
+    }
+
+    @Benchmark
+    public void animationCycle() {
+        aniObj.restoreBackPixels();
+        aniObj.prevX = aniObj.x;
+        aniObj.prevY = aniObj.y;
+        aniObj.x = (short)(aniObj.x < 140? aniObj.x + 1 : 0);
+        aniObj.setCel(aniObj.currentCel ^ 1);
+        aniObj.draw();
+        aniObj.show(benchmarkGame.pixelData);
+    }
+}
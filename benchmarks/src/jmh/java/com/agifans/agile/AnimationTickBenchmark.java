@@ -0,0 +1,98 @@
+package com.agifans.agile;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.agifans.agile.AnimatedObject.MotionType;
+import com.agifans.agile.agilib.Picture;
+import com.agifans.agile.lwjgl3.DesktopPixelData;
+import com.agifans.agile.lwjgl3.DesktopSavedGameStore;
+import com.agifans.agile.lwjgl3.DesktopUserInput;
+import com.agifans.agile.lwjgl3.DesktopVariableData;
+import com.agifans.agile.lwjgl3.HeadlessWavePlayer;
+
+/**
+ * Measures a full Interpreter animation tick, i.e. a scan of the synthetic LOGIC 0, the
+ * redrawing of the user input line, and the animation of several wandering objects over
+ * the synthetic PICTURE, with no user input. The steady state tick should not allocate 
+ * anything. This is enforced by AnimationTickAllocationTest, which uses the same setup, and
+ * can also be seen by running with the GC profiler, e.g.
+ * gradlew benchmarks:jmh -Pjmh.includes=AnimationTick -Pjmh.profilers=gc
+ * and confirming that gc.alloc.rate.norm is 0 bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimationTickBenchmark {
+
+    private Interpreter interpreter;
+
+    @Setup
+    public void setup() {
+        interpreter = createInterpreter();
+    }
+
+    /**
+     * Creates an Interpreter for the synthetic game, with the PICTURE drawn, the input line
+     * enabled, and several objects wandering around.
+     *
+     * @return The Interpreter, ready for its animation ticks to be run.
+     */
+    static Interpreter createInterpreter() {
+        VariableData variableData = new DesktopVariableData();
+        WavePlayer wavePlayer = new HeadlessWavePlayer();
+        wavePlayer.setVariableData(variableData);
+        PixelData pixelData = new DesktopPixelData();
+        pixelData.init(320, 200);
+        UserInput userInput = new DesktopUserInput();
+        Interpreter interpreter = new Interpreter(SyntheticGame.createGame(), userInput, wavePlayer, 
+                new DesktopSavedGameStore(), pixelData, variableData);
+
+        // Draw the PICTURE, in the same way as the draw.pic command does.
+        GameState state = interpreter.getState();
+        Picture picture = state.getPicture(1).clone();
+        picture.drawPicture();
+        state.currentPicture = picture;
+        System.arraycopy(picture.getVisualPixels(), 0, state.visualPixels, 0, 160 * 168);
+        TextGraphics textGraphics = new TextGraphics(pixelData, state, userInput);
+        new Commands(pixelData, state, userInput, textGraphics, new Parser(state), new SoundPlayer(state, wavePlayer),
+                new Menu(state, textGraphics, pixelData, userInput), new DesktopSavedGameStore()).splitPriorityPixels();
+        state.graphicsMode = true;
+
+        // Accept input, so that the input line is redrawn on every tick, as in most games.
+        state.acceptInput = true;
+        state.strings[0] = ">";
+        state.cursorCharacter = '_';
+
+        // Start some objects wandering around the PICTURE.
+        for (int i = 1; i <= 6; i++) {
+            AnimatedObject aniObj = state.animatedObjects[i];
+            aniObj.setView(0);
+            aniObj.setLoop(0);
+            aniObj.setCel(0);
+            aniObj.x = (short)(i * 20);
+            aniObj.y = (short)(40 + (i * 15));
+            aniObj.prevX = aniObj.x;
+            aniObj.prevY = aniObj.y;
+            aniObj.drawn = true;
+            aniObj.update = true;
+            aniObj.animated = true;
+            aniObj.cycle = true;
+            aniObj.motionType = MotionType.WANDER;
+        }
+        state.drawObjects();
+        return interpreter;
+    }
+
+    @Benchmark
+    public void animationTick() {
+        interpreter.animationTick();
+    }
+}
@@ -0,0 +1,71 @@
+package com.agifans.agile;
+
+import com.agifans.agile.agilib.Game;
+import com.agifans.agile.agilib.Picture;
+import com.agifans.agile.lwjgl3.DesktopPixelData;
+import com.agifans.agile.lwjgl3.DesktopSavedGameStore;
+import com.agifans.agile.lwjgl3.DesktopUserInput;
+import com.agifans.agile.lwjgl3.DesktopVariableData;
+import com.agifans.agile.lwjgl3.HeadlessWavePlayer;
+
+/**
+ * Wires together the same core components that the Interpreter creates, but for the
+ * synthetic game and with direct access to each component, so that the benchmarks can
+ * invoke the individual hot paths in isolation.
+ */
+public class BenchmarkGame {
+
+    public final Game game;
+
+    public final GameState state;
+
+    public final PixelData pixelData;
+
+    public final UserInput userInput;
+
+    public final TextGraphics textGraphics;
+
+    public final SoundPlayer soundPlayer;
+
+    public final Commands commands;
+
+    /**
+     * Constructor for BenchmarkGame.
+     */
+    public BenchmarkGame() {
+        VariableData variableData = new DesktopVariableData();
+        WavePlayer wavePlayer = new HeadlessWavePlayer();
+        wavePlayer.setVariableData(variableData);
+
+        this.game = SyntheticGame.createGame();
+        this.pixelData = new DesktopPixelData();
+        this.pixelData.init(320, 200);
+        this.userInput = new DesktopUserInput();
+        this.state = new GameState(game, variableData);
+        this.textGraphics = new TextGraphics(pixelData, state, userInput);
+        this.soundPlayer = new SoundPlayer(state, wavePlayer);
+        Parser parser = new Parser(state);
+        Menu menu = new Menu(state, textGraphics, pixelData, userInput);
+        this.commands = new Commands(pixelData, state, userInput, textGraphics, parser,
+                soundPlayer, menu, new DesktopSavedGameStore());
+        this.state.init();
+    }
+
+    /**
+     * Draws the given picture and makes it the current picture, in the same way as the
+     * draw.pic and show.pic commands do, so that the visual and priority screens are
+     * populated for the AnimatedObject benchmarks.
+     *
+     * @param pictureNum The number of the picture to draw.
+     */
+    public void drawPicture(int pictureNum) {
+        Picture picture = state.getPicture(pictureNum).clone();
+        picture.drawPicture();
+        state.currentPicture = picture;
+
+        System.arraycopy(picture.getVisualPixels(), 0, state.visualPixels, 0, 160 * 168);
+        commands.splitPriorityPixels();
+
+        state.pictureVisible = true;
+    }
+}
@@ -0,0 +1,52 @@
+package com.agifans.agile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.agifans.agile.agilib.jagi.io.LZWInputStream;
+
+/**
+ * Measures the decompression of AGI V3 LZW compressed resource data. The input is the
+ * synthetic game's resources repeated to roughly the size of a large AGI V3 VOL entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LZWBenchmark {
+
+    private byte[] compressedData;
+
+    private byte[] buffer;
+
+    @Setup
+    public void setup() {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        byte[] resources = SyntheticGame.createGameFiles().get("vol.0");
+        while (data.size() < 32768) {
+            data.write(resources, 0, resources.length);
+        }
+        compressedData = SyntheticGame.compressLZW(data.toByteArray());
+        buffer = new byte[data.size()];
+    }
+
+    @Benchmark
+    public int decompress() throws IOException {
+        LZWInputStream in = new LZWInputStream(new ByteArrayInputStream(compressedData));
+        int total = 0;
+        int count;
+        while ((count = in.read(buffer, total, buffer.length - total)) > 0) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,33 @@
+package com.agifans.agile;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the LOGIC interpreter, i.e. a full scan of the synthetic LOGIC 0, which
+ * executes a loop of variable, flag, IF, OR, NOT and GOTO actions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogicBenchmark {
+
+    private BenchmarkGame benchmarkGame;
+
+    @Setup
+    public void setup() {
+        benchmarkGame = new BenchmarkGame();
+    }
+
+    @Benchmark
+    public boolean executeLogic() {
+        return benchmarkGame.commands.executeLogic(0);
+    }
+}
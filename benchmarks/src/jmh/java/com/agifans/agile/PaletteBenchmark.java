@@ -0,0 +1,82 @@
+package com.agifans.agile;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.agifans.agile.lwjgl3.DesktopPixelData;
+
+/**
+ * Measures the conversion of a full screen of EGA colours to the current palette, as
+ * happens for show.pic and shake.screen. The hashMapLookup benchmark is the boxed Map
+ * lookup that PixelData used to do for every pixel, and tableLookup is the primitive
+ * table lookup that replaced it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaletteBenchmark {
+
+    private static final int SCREEN_SIZE = 320 * 200;
+
+    private int[] screen;
+
+    private int[] output;
+
+    private Map<Integer, Integer> egaToPaletteMap;
+
+    private DesktopPixelData pixelData;
+
+    @Setup
+    public void setup() {
+        // Runs of random EGA colours, similar to a drawn PICTURE.
+        Random random = new Random(1);
+        screen = new int[SCREEN_SIZE];
+        for (int index = 0; index < SCREEN_SIZE; ) {
+            int colour = EgaPalette.colours[random.nextInt(16)];
+            for (int runLength = 1 + random.nextInt(16); (runLength > 0) && (index < SCREEN_SIZE); runLength--) {
+                screen[index++] = colour;
+            }
+        }
+        output = new int[SCREEN_SIZE];
+
+        egaToPaletteMap = new HashMap<>();
+        for (int colourNum = 0; colourNum < 16; colourNum++) {
+            egaToPaletteMap.put(EgaPalette.colours[colourNum], EgaPalette.colours[colourNum]);
+        }
+
+        pixelData = new DesktopPixelData();
+        pixelData.init(320, 200);
+    }
+
+    @Benchmark
+    public int[] hashMapLookup() {
+        for (int index = 0; index < SCREEN_SIZE; index++) {
+            int rgba8888Colour = screen[index];
+            output[index] = egaToPaletteMap.getOrDefault(rgba8888Colour, rgba8888Colour);
+        }
+        return output;
+    }
+
+    @Benchmark
+    public int[] tableLookup() {
+        for (int index = 0; index < SCREEN_SIZE; index++) {
+            output[index] = pixelData.toPaletteColour(screen[index]);
+        }
+        return output;
+    }
+
+    @Benchmark
+    public void pixelCopy() {
+        pixelData.pixelCopy(screen, 0, SCREEN_SIZE);
+    }
+}
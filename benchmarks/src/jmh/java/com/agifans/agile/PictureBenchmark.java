@@ -0,0 +1,59 @@
+package com.agifans.agile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.agifans.agile.agilib.Picture;
+import com.agifans.agile.agilib.jagi.pic.PictureException;
+import com.agifans.agile.agilib.jagi.pic.StandardPictureProvider;
+
+/**
+ * Measures the decoding and drawing of the synthetic PICTURE, and the splitting of its 
+ * priority screen into the priority and control pixel arrays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PictureBenchmark {
+
+    private BenchmarkGame benchmarkGame;
+
+    private byte[] pictureData;
+
+    private StandardPictureProvider pictureProvider;
+
+    @Setup
+    public void setup() {
+        benchmarkGame = new BenchmarkGame();
+        benchmarkGame.drawPicture(1);
+        pictureData = SyntheticGame.createPictureData();
+        pictureProvider = new StandardPictureProvider();
+    }
+
+    @Benchmark
+    public com.agifans.agile.agilib.jagi.pic.Picture loadPicture() throws IOException, PictureException {
+        return pictureProvider.loadPicture(new ByteArrayInputStream(pictureData));
+    }
+
+    @Benchmark
+    public int[] drawPicture() {
+        Picture picture = benchmarkGame.state.getPicture(1).clone();
+        picture.drawPicture();
+        return picture.getVisualPixels();
+    }
+
+    @Benchmark
+    public int[] splitPriorityPixels() {
+        benchmarkGame.commands.splitPriorityPixels();
+        return benchmarkGame.state.controlPixels;
+    }
+}
@@ -0,0 +1,34 @@
+package com.agifans.agile;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the generation of the WAV data for the synthetic SOUND, i.e. the SN76496
+ * emulation for its three tone voices and noise voice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SoundBenchmark {
+
+    private BenchmarkGame benchmarkGame;
+
+    @Setup
+    public void setup() {
+        benchmarkGame = new BenchmarkGame();
+    }
+
+    @Benchmark
+    public byte[] loadSound() {
+        benchmarkGame.soundPlayer.loadSound(benchmarkGame.state.getSound(0));
+        return benchmarkGame.soundPlayer.soundCache.get(0);
+    }
+}
@@ -0,0 +1,437 @@
+package com.agifans.agile;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.agifans.agile.agilib.Game;
+
+/**
+ * Generates the data files for a small AGI V2 game entirely in memory, so that the
+ * benchmarks can run offline and always measure exactly the same workload. The game
+ * has a single LOGIC (0), PICTURE (1), VIEW (0) and SOUND (0), each designed to
+ * exercise the same code paths that a real game would.
+ */
+public class SyntheticGame {
+
+    /**
+     * Minimal WORDS.TOK file, i.e. an empty letter index followed by a single word.
+     */
+    private static final byte[] WORDS_TOK = {
+        0x00, 0x34, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x1E, 0x11, 0x06,
+        0x08, 0x10, 0x0D, (byte)0x9B, 0x00, 0x01, 0x00
+    };
+
+    /**
+     * Minimal encrypted OBJECT file, i.e. a header and no objects.
+     */
+    private static final byte[] OBJECT = { 0x42, 0x76, 0x69, 0x70, 0x20, 0x44, 0x4A, 0x72 };
+
+    /**
+     * The number of times that the main loop in LOGIC 0 iterates on each scan.
+     */
+    public static final int LOGIC_LOOP_COUNT = 100;
+
+    /**
+     * Creates the Map of AGI game data files for the synthetic game, keyed by lower case
+     * file name, as expected by the Game class.
+     *
+     * @return The Map of game file name to file content.
+     */
+    public static Map<String, byte[]> createGameFiles() {
+        ByteArrayOutputStream vol = new ByteArrayOutputStream();
+        byte[] logDir = createDirectory(0, addResource(vol, createLogicData()));
+        byte[] picDir = createDirectory(1, addResource(vol, createPictureData()));
+        byte[] viewDir = createDirectory(0, addResource(vol, createViewData()));
+        byte[] sndDir = createDirectory(0, addResource(vol, createSoundData()));
+
+        Map<String, byte[]> gameFilesMap = new HashMap<>();
+        gameFilesMap.put("logdir", logDir);
+        gameFilesMap.put("picdir", picDir);
+        gameFilesMap.put("viewdir", viewDir);
+        gameFilesMap.put("snddir", sndDir);
+        gameFilesMap.put("vol.0", vol.toByteArray());
+        gameFilesMap.put("words.tok", WORDS_TOK);
+        gameFilesMap.put("object", OBJECT);
+        return gameFilesMap;
+    }
+
+    /**
+     * Creates and decodes the synthetic game.
+     *
+     * @return The decoded synthetic Game.
+     */
+    public static Game createGame() {
+        return new Game(createGameFiles());
+    }
+
+    /**
+     * Appends a resource, with its standard 5 byte header, to the given VOL file.
+     *
+     * @param vol The VOL file content to append the resource to.
+     * @param data The raw resource data.
+     *
+     * @return The offset of the resource within the VOL file.
+     */
+    private static int addResource(ByteArrayOutputStream vol, byte[] data) {
+        int offset = vol.size();
+        vol.write(0x12);
+        vol.write(0x34);
+        vol.write(0);
+        vol.write(data.length & 0xFF);
+        vol.write((data.length >> 8) & 0xFF);
+        vol.write(data, 0, data.length);
+        return offset;
+    }
+
+    /**
+     * Creates a directory file containing a single entry in VOL.0.
+     *
+     * @param resourceNum The number of the resource.
+     * @param offset The offset of the resource within VOL.0.
+     *
+     * @return The directory file content.
+     */
+    private static byte[] createDirectory(int resourceNum, int offset) {
+        byte[] dir = new byte[(resourceNum + 1) * 3];
+        for (int i = 0; i < dir.length; i++) {
+            dir[i] = (byte)0xFF;
+        }
+        dir[resourceNum * 3 + 0] = (byte)((offset >> 16) & 0x0F);
+        dir[resourceNum * 3 + 1] = (byte)((offset >> 8) & 0xFF);
+        dir[resourceNum * 3 + 2] = (byte)(offset & 0xFF);
+        return dir;
+    }
+
+    /**
+     * Creates a LOGIC that performs a loop of typical variable, flag and test commands,
+     * along with IF, OR, NOT and GOTO jumps, on every scan. The equivalent source is:
+     *
+     * <pre>
+     * v50 = 0; v52 = 0;
+     * loop:
+     * if (v50 &lt; 100) {
+     *   v50++; v51 += 7;
+     *   if (v51 &gt; 200 || isset(f50)) { v51 = 0; toggle(f50); }
+     *   if (!(v52 == 3)) { v52++; }
+     *   goto loop;
+     * }
+     * return();
+     * </pre>
+     *
+     * @return The raw LOGIC data.
+     */
+    public static byte[] createLogicData() {
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        write(code, 0x03, 50, 0);                       // assignn(v50, 0)
+        write(code, 0x03, 52, 0);                       // assignn(v52, 0)
+        int loopStart = code.size();
+        write(code, 0xFF, 0x03, 50, LOGIC_LOOP_COUNT, 0xFF); // if (lessn(v50, 100)) {
+        int loopBlock = reserveJump(code);
+        write(code, 0x01, 50);                          //   increment(v50)
+        write(code, 0x05, 51, 7);                       //   addn(v51, 7)
+        write(code, 0xFF, 0xFC, 0x05, 51, 200, 0x07, 50, 0xFC, 0xFF); // if (greatern(v51, 200) || isset(f50)) {
+        int orBlock = reserveJump(code);
+        write(code, 0x03, 51, 0);                       //     assignn(v51, 0)
+        write(code, 0x0E, 50);                          //     toggle(f50)
+        patchJump(code, orBlock);                       //   }
+        write(code, 0xFF, 0xFD, 0x01, 52, 3, 0xFF);     //   if (!equaln(v52, 3)) {
+        int notBlock = reserveJump(code);
+        write(code, 0x01, 52);                          //     increment(v52)
+        patchJump(code, notBlock);                      //   }
+        write(code, 0xFE);                              //   goto(loop)
+        int gotoLoop = reserveJump(code);
+        patchJump(code, gotoLoop, loopStart);
+        patchJump(code, loopBlock);                     // }
+        write(code, 0x00);                              // return()
+
+        // Prefix the code with its length, and then follow it with an empty messages section.
+        byte[] codeData = code.toByteArray();
+        ByteArrayOutputStream logic = new ByteArrayOutputStream();
+        write(logic, codeData.length & 0xFF, (codeData.length >> 8) & 0xFF);
+        logic.write(codeData, 0, codeData.length);
+        write(logic, 0, 0, 0);
+        return logic.toByteArray();
+    }
+
+    /**
+     * Creates a PICTURE made up of a grid of boxes drawn with absolute, relative and
+     * corner lines, each of which is then flood filled, followed by a series of brush
+     * plots. Both the visual and priority screens are drawn to.
+     *
+     * @return The raw PICTURE data.
+     */
+    public static byte[] createPictureData() {
+        ByteArrayOutputStream pic = new ByteArrayOutputStream();
+
+        // Grid lines, in black on the visual screen and a control line colour on priority.
+        write(pic, 0xF0, 0, 0xF2, 3);
+        for (int x = 0; x < 160; x += 20) {
+            write(pic, 0xF6, x, 0, x, 167);
+        }
+        write(pic, 0xF6, 159, 0, 159, 167);
+        for (int y = 0; y < 168; y += 28) {
+            write(pic, 0xF6, 0, y, 159, y);
+        }
+        write(pic, 0xF6, 0, 167, 159, 167);
+
+        // Diamonds within every second box, drawn with relative lines.
+        for (int y = 14; y < 168; y += 56) {
+            for (int x = 10; x < 160; x += 40) {
+                write(pic, 0xF7, x, y - 8, 0x44, 0x44, 0xC4, 0xC4, 0xCC, 0xCC, 0x4C, 0x4C);
+            }
+        }
+
+        // Stepped lines using the X and Y corner commands.
+        write(pic, 0xF5, 20, 28, 30, 36, 40, 44, 50, 52, 60);
+        write(pic, 0xF4, 100, 84, 92, 110, 100, 120, 108, 130);
+
+        // Flood fill each box with its own colour and priority.
+        for (int row = 0, box = 0; row < 6; row++) {
+            for (int col = 0; col < 8; col++, box++) {
+                write(pic, 0xF0, 1 + (box % 14), 0xF2, 4 + (row * 2));
+                write(pic, 0xF8, (col * 20) + 2, (row * 28) + 2);
+            }
+        }
+
+        // Splatter brush plots with a range of pen sizes.
+        for (int size = 0; size < 8; size++) {
+            write(pic, 0xF0, 15 - size, 0xF3, 0xF9, 0x20 | size, 0xFA);
+            for (int i = 0; i < 10; i++) {
+                write(pic, (i * 22) & 0xFE, 8 + (i * 15), 10 + (size * 20));
+            }
+        }
+
+        write(pic, 0xFF);
+        return pic.toByteArray();
+    }
+
+    /**
+     * Creates a VIEW with a single loop of two 16x24 cels, each having transparent
+     * margins and several colour runs per row.
+     *
+     * @return The raw VIEW data.
+     */
+    public static byte[] createViewData() {
+        ByteArrayOutputStream view = new ByteArrayOutputStream();
+        int numOfCels = 2;
+        int celHeight = 24;
+
+        // Header: step size, cycle time, one loop, no description, loop at offset 7.
+        write(view, 1, 1, 1, 0, 0, 7, 0);
+
+        // Loop header, followed by the cel offsets relative to the loop start.
+        int celSize = 3 + (celHeight * 4);
+        write(view, numOfCels);
+        for (int cel = 0, celOffset = 1 + (numOfCels * 2); cel < numOfCels; cel++, celOffset += celSize) {
+            write(view, celOffset & 0xFF, (celOffset >> 8) & 0xFF);
+        }
+
+        for (int cel = 0; cel < numOfCels; cel++) {
+            // Width, height and a transparent colour of 0, with no mirroring.
+            write(view, 16, celHeight, 0x00);
+            for (int y = 0; y < celHeight; y++) {
+                int colour = 1 + ((y + cel) % 14);
+                int margin = 1 + ((y + cel) % 3);
+                // Transparent margin, two colour runs, then end of row. The rest is transparent.
+                write(view, margin, (colour << 4) | 6, ((15 - colour) << 4) | 6, 0);
+            }
+        }
+
+        return view.toByteArray();
+    }
+
+    /**
+     * Creates a SOUND with three tone voices and a noise voice, each made up of a
+     * sequence of short notes.
+     *
+     * @return The raw SOUND data.
+     */
+    public static byte[] createSoundData() {
+        int notesPerVoice = 40;
+        int voiceSize = (notesPerVoice * 5) + 2;
+        ByteArrayOutputStream sound = new ByteArrayOutputStream();
+
+        for (int voice = 0, offset = 8; voice < 4; voice++, offset += voiceSize) {
+            write(sound, offset & 0xFF, (offset >> 8) & 0xFF);
+        }
+
+        for (int voice = 0; voice < 4; voice++) {
+            for (int note = 0; note < notesPerVoice; note++) {
+                int duration = 4;
+                int freqDiv = (voice < 3? 100 + (((note * 37) + (voice * 101)) % 800) : (note & 0x07));
+                int volume = (note + voice) % 8;
+                write(sound, duration & 0xFF, (duration >> 8) & 0xFF,
+                        (freqDiv >> 4) & 0x3F, 0x80 | (voice << 5) | (freqDiv & 0x0F), 0x90 | (voice << 5) | volume);
+            }
+            write(sound, 0xFF, 0xFF);
+        }
+
+        return sound.toByteArray();
+    }
+
+    /**
+     * Compresses the given data using the AGI V3 variant of LZW, as decompressed by the
+     * LZWInputStream, i.e. 9 to 11 bit codes, packed least significant bit first, with
+     * 256 as the reset code and 257 as the end code.
+     *
+     * @param data The data to compress.
+     *
+     * @return The compressed data.
+     */
+    public static byte[] compressLZW(byte[] data) {
+        LZWBitWriter out = new LZWBitWriter();
+        Map<Integer, Integer> dictionary = new HashMap<>();
+        int nextCode = 258;
+        int codeCount = 0;
+        int prefix = -1;
+
+        out.write(256);
+
+        for (byte b : data) {
+            int c = b & 0xFF;
+            if (prefix < 0) {
+                prefix = c;
+                continue;
+            }
+            Integer code = dictionary.get((prefix << 8) | c);
+            if (code != null) {
+                prefix = code;
+                continue;
+            }
+            out.write(prefix);
+            codeCount++;
+            out.adjustWidth(256 + codeCount);
+            if (nextCode < 2040) {
+                dictionary.put((prefix << 8) | c, nextCode++);
+                prefix = c;
+            }
+            else {
+                // The table is full, so emit a reset and start again with 9 bit codes.
+                out.write(256);
+                out.reset();
+                dictionary.clear();
+                nextCode = 258;
+                codeCount = 0;
+                prefix = c;
+            }
+        }
+
+        if (prefix >= 0) {
+            out.write(prefix);
+            codeCount++;
+            out.adjustWidth(256 + codeCount);
+        }
+        out.write(257);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes variable width codes, least significant bit first, mirroring the way in
+     * which the LZWInputStream reads them.
+     */
+    private static class LZWBitWriter {
+
+        private ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        private long bitBuffer;
+
+        private int bitCount;
+
+        private int bits = 9;
+
+        void write(int code) {
+            bitBuffer |= ((long)code) << bitCount;
+            bitCount += bits;
+            while (bitCount >= 8) {
+                out.write((int)(bitBuffer & 0xFF));
+                bitBuffer >>>= 8;
+                bitCount -= 8;
+            }
+        }
+
+        /**
+         * The decoder widens its codes once the table entry it has just added goes
+         * beyond the current maximum, up to a maximum of 11 bits.
+         *
+         * @param decoderEntry The table entry that the decoder adds for the last code.
+         */
+        void adjustWidth(int decoderEntry) {
+            if ((decoderEntry > ((1 << bits) - 2)) && (bits < 11)) {
+                bits++;
+            }
+        }
+
+        void reset() {
+            bits = 9;
+        }
+
+        byte[] toByteArray() {
+            if (bitCount > 0) {
+                out.write((int)(bitBuffer & 0xFF));
+                bitBuffer = 0;
+                bitCount = 0;
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Writes the given values as bytes to the given stream.
+     *
+     * @param out The stream to write to.
+     * @param values The byte values to write.
+     */
+    private static void write(ByteArrayOutputStream out, int... values) {
+        for (int value : values) {
+            out.write(value);
+        }
+    }
+
+    /**
+     * Writes a placeholder for a 16 bit jump offset, to be patched once the destination is known.
+     *
+     * @param code The code stream.
+     *
+     * @return The position of the placeholder.
+     */
+    private static int reserveJump(ByteArrayOutputStream code) {
+        int position = code.size();
+        write(code, 0, 0);
+        return position;
+    }
+
+    /**
+     * Patches the jump at the given position to point at the current end of the code stream.
+     *
+     * @param code The code stream.
+     * @param position The position of the jump offset placeholder.
+     */
+    private static void patchJump(ByteArrayOutputStream code, int position) {
+        patchJump(code, position, code.size());
+    }
+
+    /**
+     * Patches the jump at the given position to point at the given destination. Offsets
+     * are relative to the end of the offset itself.
+     *
+     * @param code The code stream.
+     * @param position The position of the jump offset placeholder.
+     * @param destination The destination address of the jump.
+     */
+    private static void patchJump(ByteArrayOutputStream code, int position, int destination) {
+        byte[] data = code.toByteArray();
+        int offset = destination - (position + 2);
+        data[position] = (byte)(offset & 0xFF);
+        data[position + 1] = (byte)((offset >> 8) & 0xFF);
+        code.reset();
+        code.write(data, 0, data.length);
+    }
+}
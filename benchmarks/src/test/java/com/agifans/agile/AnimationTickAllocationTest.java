@@ -0,0 +1,59 @@
+package com.agifans.agile;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+/**
+ * Checks that a steady state Interpreter animation tick doesn't allocate anything, using
+ * the same synthetic game setup as the AnimationTickBenchmark. The bytes allocated by the
+ * test thread are read from the ThreadMXBean before and after a run of ticks.
+ */
+public class AnimationTickAllocationTest {
+
+    /**
+     * The number of ticks to run before measuring, so that every path has been taken, and
+     * the JIT has compiled the tick.
+     */
+    private static final int WARM_UP_TICKS = 20000;
+
+    /**
+     * The number of ticks in each measured run.
+     */
+    private static final int MEASURED_TICKS = 5000;
+
+    /**
+     * The maximum number of measured runs. The JVM very occasionally attributes a few bytes
+     * to the thread while the JIT is still settling, so a run that allocated is retried. An
+     * allocation in the tick itself shows up in every run.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Test
+    public void animationTickDoesNotAllocate() {
+        Interpreter interpreter = AnimationTickBenchmark.createInterpreter();
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < WARM_UP_TICKS; i++) {
+            interpreter.animationTick();
+        }
+        threadMXBean.getThreadAllocatedBytes(threadId);
+
+        long allocatedBytes = 0;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_TICKS; i++) {
+                interpreter.animationTick();
+            }
+            allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+            if (allocatedBytes == 0) {
+                break;
+            }
+        }
+
+        assertEquals("Bytes allocated by " + MEASURED_TICKS + " animation ticks", 0, allocatedBytes);
+    }
+}
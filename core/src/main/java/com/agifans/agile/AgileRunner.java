@@ -1,5 +1,7 @@
 package com.agifans.agile;
 
+import java.nio.ByteBuffer;
+
 import com.agifans.agile.config.AppConfigItem;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
@@ -25,6 +27,11 @@ public abstract class AgileRunner {
     protected PixelData pixelData;
     protected VariableData variableData;
     
+    /**
+     * If set, then the user input for each tick is recorded to this InputRecording.
+     */
+    protected InputRecording inputRecording;
+    
     private long lastTime;
     private long deltaTime;
     
@@ -100,13 +107,39 @@ public abstract class AgileRunner {
     }
     
     /**
-     * Updates Pixmap with the latest local changes within our implementation specific
-     * PixelData.
+     * Starts recording the user input to the given InputRecording, or stops recording if
+     * null is passed in. The GameState's random number generator should be seeded with the
+     * InputRecording's seed for the recording to be replayable.
+     * 
+     * @param inputRecording The InputRecording to record to.
+     */
+    public void setInputRecording(InputRecording inputRecording) {
+        this.inputRecording = inputRecording;
+        userInput.setInputRecording(inputRecording);
+    }
+    
+    /**
+     * Acquires the latest frame published by the Interpreter thread, if there has been a 
+     * new one since the last call, either by copying it in to the Pixmap or in to a buffer 
+     * that is then returned by getFramePixels.
      * 
      * @param pixmap
+     * @param updatedTiles The DirtyTiles in which to mark the tiles that were updated.
+     * 
+     * @return true if a new frame was acquired; false if there were no changes.
      */
-    public void updatePixmap(Pixmap pixmap) {
-        pixelData.updatePixmap(pixmap);
+    public boolean acquireFrame(Pixmap pixmap, DirtyTiles updatedTiles) {
+        return pixelData.acquireFrame(pixmap, updatedTiles);
+    }
+    
+    /**
+     * Gets the pixels of the frame acquired by the last acquireFrame call, if the PixelData
+     * implementation keeps its own frame buffers rather than updating the Pixmap.
+     * 
+     * @return The frame pixels in R, G, B, A byte order, or null if the Pixmap holds the frame.
+     */
+    public ByteBuffer getFramePixels() {
+        return pixelData.getFramePixels();
     }
     
     /**
@@ -128,15 +161,7 @@ public abstract class AgileRunner {
             deltaTime -= NANOS_PER_FRAME;
             
             // Regardless of whether we're already in an animation tick, we keep counting the number of Ticks.
-            int newTotalTicks = variableData.incrementTotalTicks();
-
-            // Tick is called 60 times a second, so every 60th call, the second clock ticks. We 
-            // deliberately do this outside of the main Tick block because some scripts wait for 
-            // the clock to reach a certain clock value, which will never happen if the block isn't
-            // updated outside of the Tick block.
-            if ((newTotalTicks % 60) == 0) {
-                updateGameClock();
-            }
+            incrementTotalTicks();
 
             // The animation tick is the platform specific bit, as it needs to be run 
             // outside of the UI thread, which is done differently depending on the 
@@ -145,6 +170,26 @@ public abstract class AgileRunner {
         }
     }
     
+    /**
+     * Increments the AGI total ticks by one, and updates the AGI game clock when a whole
+     * second's worth of ticks has passed.
+     */
+    protected void incrementTotalTicks() {
+        int newTotalTicks = variableData.incrementTotalTicks();
+        
+        if (inputRecording != null) {
+            inputRecording.recordTick(newTotalTicks, variableData);
+        }
+
+        // Tick is called 60 times a second, so every 60th call, the second clock ticks. We 
+        // deliberately do this outside of the main Tick block because some scripts wait for 
+        // the clock to reach a certain clock value, which will never happen if the block isn't
+        // updated outside of the Tick block.
+        if ((newTotalTicks % 60) == 0) {
+            updateGameClock();
+        }
+    }
+    
     /**
      * Updates the internal AGI game clock. This method is invoked once a second. We 
      * do this in the AgileRunner base class, running within the UI thread, because 
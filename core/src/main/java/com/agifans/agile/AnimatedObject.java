@@ -50,7 +50,7 @@ public class AnimatedObject implements Comparable<AnimatedObject> {
     /**
      * The View currently being used by this AnimatedObject.
      */
-    public View view() { return state.views[currentView]; }
+    public View view() { return state.getView(currentView); }
 
     /**
      * The current loop number within the View.
@@ -296,8 +296,7 @@ public class AnimatedObject implements Comparable<AnimatedObject> {
         update = true;
 
         previousCel = null;
-        saveArea.visBackPixels = null;
-        saveArea.priBackPixels = null;
+        saveArea.saved = false;
 
         stepSize = 1;
         cycleTime = 1;
@@ -1182,8 +1181,10 @@ public class AnimatedObject implements Comparable<AnimatedObject> {
 
         this.controlBoxColour = (byte)controlBoxColour;
 
-        // Draw permanently to the CurrentPicture, including the control box.
+        // Draw permanently to the CurrentPicture, including the control box. This means that 
+        // it no longer matches what is in the PictureCache.
         draw(state.currentPicture);
+        state.currentPictureKey = null;
 
         // Restore backgrounds, add add.to.pic to VisualPixels, then redraw AnimatedObjects and show updated area.
         state.restoreBackgrounds();
@@ -1433,54 +1434,51 @@ public class AnimatedObject implements Comparable<AnimatedObject> {
         // Get the transparency colour. We'll use this to ignore pixels this colour.
         int transparentPixelRGB = cel.getTransparentPixel();
 
-        // Calculate starting screen offset. AGI pixels are 2x1 within the picture area.
-        int aniObjTop = ((this.y - cellHeight) + 1);
-        int screenPos = (aniObjTop * 320) + (this.x * 2);
-        int screenLineAdd = 320 - (cellWidth << 1);
-
-        // Calculate starting position within the priority screen.
-        int priorityPos = (aniObjTop * 160) + this.x;
-        int priorityLineAdd = 160 - cellWidth;
-        int cellPos = 0;
-        int cellXAdd = 1;
-        int cellYAdd = 0;
-
-        // Allocate new background pixel array for the current cell size.
-        this.saveArea.visBackPixels = new int[cellWidth][cellHeight];
-        this.saveArea.priBackPixels = new int[cellWidth][cellHeight];
+        // Reuse the background pixel arrays, growing them if the cell is bigger than any before.
+        this.saveArea.resize(cellWidth, cellHeight);
         this.saveArea.x = this.x;
         this.saveArea.y = this.y;
-        this.saveArea.width = cellWidth;
-        this.saveArea.height = cellHeight;
+        this.saveArea.saved = true;
+        this.saveArea.restored = false;
+        this.saveArea.cel = cel;
+        this.saveArea.priority = this.priority;
 
-        // Iterate over each of the pixels and decide if the priority screen allows the pixel
-        // to be drawn or not. Deliberately tried to avoid multiplication within the loops.
-        for (int y = 0; y < cellHeight; y++, screenPos += screenLineAdd, priorityPos += priorityLineAdd, cellPos += cellYAdd) {
-            for (int x = 0; x < cellWidth; x++, screenPos += 2, priorityPos++, cellPos += cellXAdd) {
-                // Check that the pixel is within the bounds of the AGI picture area.
-                if (((aniObjTop + y) >= 0) && ((aniObjTop + y) < 168) && ((this.x + x) >= 0) && ((this.x + x) < 160)) {
-                    // Store the background pixel. Should be the same colour in both pixels.
-                    this.saveArea.visBackPixels[x][y] = state.visualPixels[screenPos];
-                    this.saveArea.priBackPixels[x][y] = state.priorityPixels[priorityPos];
+        // Clip the cell to the AGI picture area, which is 160x168 for both the visual and priority screens.
+        int aniObjTop = ((this.y - cellHeight) + 1);
+        int startX = Math.max(-this.x, 0);
+        int endX = Math.min(160 - this.x, cellWidth);
+        int startY = Math.max(-aniObjTop, 0);
+        int endY = Math.min(168 - aniObjTop, cellHeight);
+
+        // Iterate over each of the rows, saving the background and then deciding if the priority 
+        // screen allows each pixel to be drawn or not.
+        for (int y = startY; y < endY; y++) {
+            int rowPos = ((aniObjTop + y) * 160) + this.x;
+            int cellPos = (y * cellWidth);
+
+            // Store the background pixels.
+            if (startX < endX) {
+                System.arraycopy(state.visualPixels, rowPos + startX, this.saveArea.visBackPixels, cellPos + startX, endX - startX);
+                System.arraycopy(state.priorityPixels, rowPos + startX, this.saveArea.priBackPixels, cellPos + startX, endX - startX);
+            }
 
-                    // Get the priority colour index for this position from the priority screen.
-                    int priorityIndex = state.priorityPixels[priorityPos];
+            for (int x = startX; x < endX; x++) {
+                int screenPos = rowPos + x;
 
-                    // If this AnimatedObject's priority is greater or equal to the priority screen value
-                    // for this pixel's position, then we'll draw it.
-                    if (this.priority >= priorityIndex) {
-                        // Get the colour index from the Cell bitmap pixels.
-                        int cellPixelRGB = cellPixels[cellPos];
+                // Get the priority colour index for this position from the priority screen.
+                int priorityIndex = state.priorityPixels[screenPos];
 
-                        // If the colourIndex is not the transparent index, then we'll draw the pixel.
-                        if (cellPixelRGB != transparentPixelRGB) {
-                            // Draw two pixels (due to AGI picture pixels being 2x1).
-                            state.visualPixels[screenPos] = cellPixelRGB;
-                            state.visualPixels[screenPos + 1] = cellPixelRGB;
+                // If this AnimatedObject's priority is greater or equal to the priority screen value
+                // for this pixel's position, then we'll draw it.
+                if (this.priority >= priorityIndex) {
+                    // Get the colour index from the Cell bitmap pixels.
+                    int cellPixelRGB = cellPixels[cellPos + x];
 
-                            // Priority screen is only stored 160x168 though.
-                            state.priorityPixels[priorityPos] = this.priority;
-                        }
+                    // If the colourIndex is not the transparent index, then we'll draw the pixel.
+                    if (cellPixelRGB != transparentPixelRGB) {
+                        // AGI pixels are 2x1, but are only doubled in width when shown.
+                        state.visualPixels[screenPos] = cellPixelRGB;
+                        state.priorityPixels[screenPos] = this.priority;
                     }
                 }
             }
@@ -1491,27 +1489,72 @@ public class AnimatedObject implements Comparable<AnimatedObject> {
      * Restores the current background pixels to the previous position of this AnimatedObject.
      */
     public void restoreBackPixels() {
-        if ((saveArea.visBackPixels != null) && (saveArea.priBackPixels != null)) {
+        if (saveArea.saved) {
+            saveArea.restored = true;
+            
             int saveWidth = saveArea.width;
             int saveHeight = saveArea.height;
             int aniObjTop = ((saveArea.y - saveHeight) + 1);
-            int screenPos = (aniObjTop * 320) + (saveArea.x * 2);
-            int screenLineAdd = 320 - (saveWidth << 1);
-            int priorityPos = (aniObjTop * 160) + saveArea.x;
-            int priorityLineAdd = 160 - saveWidth;
-
-            for (int y = 0; y < saveHeight; y++, screenPos += screenLineAdd, priorityPos += priorityLineAdd) {
-                for (int x = 0; x < saveWidth; x++, screenPos += 2, priorityPos++) {
-                    if (((aniObjTop + y) >= 0) && ((aniObjTop + y) < 168) && ((saveArea.x + x) >= 0) && ((saveArea.x + x) < 160)) {
-                        state.visualPixels[screenPos] = saveArea.visBackPixels[x][y];
-                        state.visualPixels[screenPos + 1] = saveArea.visBackPixels[x][y];
-                        state.priorityPixels[priorityPos] = saveArea.priBackPixels[x][y];
-                    }
+
+            // Clip the save area to the AGI picture area, as only those pixels were saved.
+            int startX = Math.max(-saveArea.x, 0);
+            int endX = Math.min(160 - saveArea.x, saveWidth);
+            int startY = Math.max(-aniObjTop, 0);
+            int endY = Math.min(168 - aniObjTop, saveHeight);
+
+            if (startX < endX) {
+                for (int y = startY; y < endY; y++) {
+                    int screenPos = ((aniObjTop + y) * 160) + saveArea.x + startX;
+                    int savePos = (y * saveWidth) + startX;
+                    System.arraycopy(saveArea.visBackPixels, savePos, state.visualPixels, screenPos, endX - startX);
+                    System.arraycopy(saveArea.priBackPixels, savePos, state.priorityPixels, screenPos, endX - startX);
                 }
             }
         }
     }
 
+    /**
+     * Checks if this AnimatedObject would look any different if it was restored and drawn
+     * again, i.e. whether its position, cel or priority have changed since it was last
+     * drawn, or if its background has since been restored.
+     * 
+     * @return true if this AnimatedObject has changed since it was last drawn; otherwise false.
+     */
+    public boolean hasChangedSinceDrawn() {
+        return (!saveArea.saved || saveArea.restored || (saveArea.x != this.x) || (saveArea.y != this.y) ||
+                (saveArea.cel != this.cel()) || (saveArea.priority != this.priority));
+    }
+    
+    /**
+     * Checks if the area that this AnimatedObject was last drawn to overlaps either the area
+     * that the other AnimatedObject was last drawn to, or the area of its current cel.
+     * 
+     * @param other The other AnimatedObject.
+     * 
+     * @return true if the areas overlap; otherwise false.
+     */
+    public boolean overlaps(AnimatedObject other) {
+        SaveArea otherArea = other.saveArea;
+        return (overlaps(otherArea.x, otherArea.y, otherArea.width, otherArea.height) ||
+                overlaps(other.x, other.y, other.xSize(), other.ySize()));
+    }
+    
+    /**
+     * Checks if the area that this AnimatedObject was last drawn to overlaps the given area, 
+     * where x and y are the bottom left corner, as for AnimatedObject positions.
+     * 
+     * @param x The X position of the left of the area.
+     * @param y The Y position of the bottom of the area.
+     * @param width The width of the area.
+     * @param height The height of the area.
+     * 
+     * @return true if the areas overlap; otherwise false.
+     */
+    private boolean overlaps(int x, int y, int width, int height) {
+        return ((saveArea.x < (x + width)) && (x < (saveArea.x + saveArea.width)) &&
+                ((saveArea.y - saveArea.height) < y) && ((y - height) < saveArea.y));
+    }
+
     /**
      * Shows the AnimatedObject by blitting the bounds of its current and previous cels to the screen 
      * pixels. The include the previous cel so that we pick up the restoration of the save area.
@@ -1534,18 +1577,17 @@ public class AnimatedObject implements Comparable<AnimatedObject> {
             // We no longer need the PreviousCel, so point it at the new one.
             this.previousCel = this.cel();
 
-            int height = (bottommostY - topmostY) + 1;
-            int width = ((rightmostX - leftmostX) + 1) * 2;
-            int picturePos = (topmostY * 320) + (leftmostX * 2);
-            int pictureLineAdd = 320 - width;
-            int screenPos = picturePos + (state.pictureRow * 8 * 320);
-
-            for (int y = 0; y < height; y++, picturePos += pictureLineAdd, screenPos += pictureLineAdd) {
-                for (int x = 0; x < width; x++, screenPos++, picturePos++) {
-                    if (((topmostY + y) >= 0) && ((topmostY + y) < 168) && ((leftmostX + x) >= 0) && ((leftmostX + x) < 320) && (screenPos >= 0) && (screenPos < 64000 /* 320*200 */)) {
-                        pixelData.putPixel(screenPos, state.visualPixels[picturePos]);
-                    }
-                }
+            // Clip the rectangle to the picture.
+            int left = Math.max(leftmostX, 0);
+            int right = Math.min(rightmostX + 1, 160);
+            int top = Math.max(topmostY, 0);
+            int bottom = Math.min(bottommostY + 1, 168);
+
+            if ((left < right) && (top < bottom)) {
+                // The picture pixels are doubled in width on the screen.
+                int picturePos = (top * 160) + left;
+                int screenPos = ((top + (state.pictureRow * 8)) * 320) + (left * 2);
+                pixelData.stretchPixels(state.visualPixels, picturePos, 160, screenPos, right - left, bottom - top);
             }
         }
     }
@@ -0,0 +1,389 @@
+package com.agifans.agile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.agifans.agile.agilib.Logic;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Collects execution counts and accumulated execution times for each AGI action command
+ * opcode, each AGI test command opcode, and each Logic number. When a CommandProfiler is
+ * set on the Commands class, every action and condition that is executed is timed, so that
+ * we can see which commands dominate in real games.
+ *
+ * Time spent blocked, i.e. waiting for a key press or pausing, is not included. This is
+ * reported by the UserInput, and is subtracted from the time of every action and Logic 
+ * that it happened within, so that commands such as print and new.room aren't charged for 
+ * the time it takes the user to respond.
+ *
+ * The total times are inclusive, e.g. the total time for a call command includes the time 
+ * spent in the Logic that it calls, and the time for an or condition includes that of the 
+ * conditions within it. The same applies to the Logic total times. The self times of the
+ * actions and Logics exclude the time spent in the Logics that they call.
+ */
+public class CommandProfiler {
+
+    /**
+     * The number of times each action command opcode has been executed.
+     */
+    private long[] actionCounts;
+
+    /**
+     * The accumulated nanoseconds spent executing each action command opcode.
+     */
+    private long[] actionNanos;
+
+    /**
+     * The accumulated nanoseconds spent executing each action command opcode, excluding 
+     * the time spent in the Logics that it called.
+     */
+    private long[] actionSelfNanos;
+
+    /**
+     * The number of times each test command opcode has been evaluated.
+     */
+    private long[] conditionCounts;
+
+    /**
+     * The accumulated nanoseconds spent evaluating each test command opcode.
+     */
+    private long[] conditionNanos;
+
+    /**
+     * The number of times each Logic has been executed.
+     */
+    private long[] logicCounts;
+
+    /**
+     * The accumulated nanoseconds spent executing each Logic.
+     */
+    private long[] logicNanos;
+
+    /**
+     * The accumulated nanoseconds spent executing each Logic, excluding the time spent in 
+     * the Logics that it called.
+     */
+    private long[] logicSelfNanos;
+
+    /**
+     * The total nanoseconds spent blocked so far, i.e. waiting for a key press or pausing.
+     */
+    private long blockedNanos;
+
+    /**
+     * The total time so far, excluding blocked time, of the Logics that have been called 
+     * directly from within the actions and Logics that are currently executing.
+     */
+    private long calledNanos;
+
+    /**
+     * The start time of each of the actions and Logics that are currently executing, with
+     * the outermost first. Actions and Logics alternate, as each call action executes a 
+     * Logic, which then executes actions.
+     */
+    private long[] startNanos;
+
+    /**
+     * The blockedNanos value when each of the currently executing actions and Logics started.
+     */
+    private long[] startBlockedNanos;
+
+    /**
+     * The calledNanos value when each of the currently executing actions and Logics started.
+     */
+    private long[] startCalledNanos;
+
+    /**
+     * The number of actions and Logics that are currently executing.
+     */
+    private int depth;
+
+    /**
+     * Constructor for CommandProfiler.
+     */
+    public CommandProfiler() {
+        reset();
+    }
+
+    /**
+     * Clears all of the counts and times collected so far.
+     */
+    public void reset() {
+        actionCounts = new long[256];
+        actionNanos = new long[256];
+        conditionCounts = new long[256];
+        conditionNanos = new long[256];
+        logicCounts = new long[256];
+        logicNanos = new long[256];
+        actionSelfNanos = new long[256];
+        logicSelfNanos = new long[256];
+        blockedNanos = 0;
+        calledNanos = 0;
+        startNanos = new long[16];
+        startBlockedNanos = new long[16];
+        startCalledNanos = new long[16];
+        depth = 0;
+    }
+
+    /**
+     * Marks the start of the execution of an action or Logic. Must be followed by a call
+     * to either endAction or endLogic when the execution is complete.
+     */
+    public void start() {
+        if (depth == startNanos.length) {
+            startNanos = Arrays.copyOf(startNanos, depth * 2);
+            startBlockedNanos = Arrays.copyOf(startBlockedNanos, depth * 2);
+            startCalledNanos = Arrays.copyOf(startCalledNanos, depth * 2);
+        }
+        startBlockedNanos[depth] = blockedNanos;
+        startCalledNanos[depth] = calledNanos;
+        startNanos[depth++] = TimeUtils.nanoTime();
+    }
+
+    /**
+     * Gets the time, excluding blocked time, since the innermost call to start.
+     */
+    private long elapsedNanos() {
+        return (TimeUtils.nanoTime() - startNanos[depth]) - (blockedNanos - startBlockedNanos[depth]);
+    }
+
+    /**
+     * Records the end of the execution of an action command that was started by the last 
+     * unmatched call to start.
+     *
+     * @param opcode The opcode of the action command.
+     */
+    public void endAction(int opcode) {
+        depth--;
+        long nanos = elapsedNanos();
+        actionCounts[opcode]++;
+        actionNanos[opcode] += nanos;
+        actionSelfNanos[opcode] += nanos - (calledNanos - startCalledNanos[depth]);
+    }
+
+    /**
+     * Records the end of the execution of a Logic that was started by the last unmatched
+     * call to start.
+     *
+     * @param logicNum The number of the Logic.
+     */
+    public void endLogic(int logicNum) {
+        depth--;
+        long nanos = elapsedNanos();
+        logicCounts[logicNum]++;
+        logicNanos[logicNum] += nanos;
+        logicSelfNanos[logicNum] += nanos - (calledNanos - startCalledNanos[depth]);
+
+        // The Logics that this one called are included in its time, so only this Logic's 
+        // time counts towards the time spent in Logics called by the enclosing action.
+        calledNanos = startCalledNanos[depth] + nanos;
+    }
+
+    /**
+     * Records time spent blocked, i.e. waiting for a key press or pausing, so that it can
+     * be excluded from the times of the actions and Logics that are executing.
+     *
+     * @param nanos The number of nanoseconds spent blocked.
+     */
+    public void recordBlocked(long nanos) {
+        blockedNanos += nanos;
+    }
+
+    /**
+     * Records the evaluation of a test command.
+     *
+     * @param opcode The opcode of the test command.
+     * @param nanos The number of nanoseconds that the evaluation took.
+     */
+    public void recordCondition(int opcode, long nanos) {
+        conditionCounts[opcode]++;
+        conditionNanos[opcode] += nanos;
+    }
+
+    /**
+     * Gets the number of times the given action command opcode has been executed.
+     *
+     * @param opcode The opcode of the action command.
+     *
+     * @return The execution count.
+     */
+    public long getActionCount(int opcode) {
+        return actionCounts[opcode];
+    }
+
+    /**
+     * Gets the accumulated nanoseconds spent executing the given action command opcode.
+     *
+     * @param opcode The opcode of the action command.
+     *
+     * @return The accumulated nanoseconds.
+     */
+    public long getActionNanos(int opcode) {
+        return actionNanos[opcode];
+    }
+
+    /**
+     * Gets the accumulated nanoseconds spent executing the given action command opcode, 
+     * excluding the time spent in the Logics that it called.
+     *
+     * @param opcode The opcode of the action command.
+     *
+     * @return The accumulated nanoseconds.
+     */
+    public long getActionSelfNanos(int opcode) {
+        return actionSelfNanos[opcode];
+    }
+
+    /**
+     * Gets the number of times the given test command opcode has been evaluated.
+     *
+     * @param opcode The opcode of the test command.
+     *
+     * @return The evaluation count.
+     */
+    public long getConditionCount(int opcode) {
+        return conditionCounts[opcode];
+    }
+
+    /**
+     * Gets the accumulated nanoseconds spent evaluating the given test command opcode.
+     *
+     * @param opcode The opcode of the test command.
+     *
+     * @return The accumulated nanoseconds.
+     */
+    public long getConditionNanos(int opcode) {
+        return conditionNanos[opcode];
+    }
+
+    /**
+     * Gets the number of times the given Logic has been executed.
+     *
+     * @param logicNum The number of the Logic.
+     *
+     * @return The execution count.
+     */
+    public long getLogicCount(int logicNum) {
+        return logicCounts[logicNum];
+    }
+
+    /**
+     * Gets the accumulated nanoseconds spent executing the given Logic.
+     *
+     * @param logicNum The number of the Logic.
+     *
+     * @return The accumulated nanoseconds.
+     */
+    public long getLogicNanos(int logicNum) {
+        return logicNanos[logicNum];
+    }
+
+    /**
+     * Gets the accumulated nanoseconds spent executing the given Logic, excluding the time
+     * spent in the Logics that it called.
+     *
+     * @param logicNum The number of the Logic.
+     *
+     * @return The accumulated nanoseconds.
+     */
+    public long getLogicSelfNanos(int logicNum) {
+        return logicSelfNanos[logicNum];
+    }
+
+    /**
+     * Gets the profile as CSV, with a header line and then one line for each action
+     * command, test command and Logic that was executed. Within each of those sections,
+     * the lines are in order of descending self time. A test command's self time is the
+     * same as its total time.
+     *
+     * @return The profile in CSV form.
+     */
+    public String toCSV() {
+        StringBuilder csv = new StringBuilder();
+        csv.append("type,id,name,count,totalNanos,selfNanos,averageNanos\n");
+        appendCSV(csv, "action", actionCounts, actionNanos, actionSelfNanos);
+        appendCSV(csv, "condition", conditionCounts, conditionNanos, conditionNanos);
+        appendCSV(csv, "logic", logicCounts, logicNanos, logicSelfNanos);
+        return csv.toString();
+    }
+
+    private void appendCSV(StringBuilder csv, String type, long[] counts, long[] nanos, long[] selfNanos) {
+        for (int id : sortedIds(counts, selfNanos)) {
+            csv.append(type).append(',');
+            csv.append(id).append(',');
+            csv.append(getName(type, id)).append(',');
+            csv.append(counts[id]).append(',');
+            csv.append(nanos[id]).append(',');
+            csv.append(selfNanos[id]).append(',');
+            csv.append(nanos[id] / counts[id]).append('\n');
+        }
+    }
+
+    /**
+     * Gets the profile as JSON, being an object with actions, conditions and logics
+     * arrays. Each array is in order of descending self time.
+     *
+     * @return The profile in JSON form.
+     */
+    public String toJSON() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        appendJSON(json, "action", actionCounts, actionNanos, actionSelfNanos);
+        json.append(",\n");
+        appendJSON(json, "condition", conditionCounts, conditionNanos, conditionNanos);
+        json.append(",\n");
+        appendJSON(json, "logic", logicCounts, logicNanos, logicSelfNanos);
+        json.append("\n}\n");
+        return json.toString();
+    }
+
+    private void appendJSON(StringBuilder json, String type, long[] counts, long[] nanos, long[] selfNanos) {
+        json.append("  \"").append(type).append("s\": [");
+        boolean first = true;
+        for (int id : sortedIds(counts, selfNanos)) {
+            json.append(first? "\n" : ",\n");
+            json.append("    { \"id\": ").append(id);
+            json.append(", \"name\": \"").append(getName(type, id)).append('"');
+            json.append(", \"count\": ").append(counts[id]);
+            json.append(", \"totalNanos\": ").append(nanos[id]);
+            json.append(", \"selfNanos\": ").append(selfNanos[id]);
+            json.append(", \"averageNanos\": ").append(nanos[id] / counts[id]);
+            json.append(" }");
+            first = false;
+        }
+        json.append(first? "]" : "\n  ]");
+    }
+
+    /**
+     * Gets the ids that have a non-zero count, in order of descending time.
+     */
+    private List<Integer> sortedIds(long[] counts, long[] nanos) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < counts.length; id++) {
+            if (counts[id] > 0) {
+                ids.add(id);
+            }
+        }
+        Collections.sort(ids, (a, b) -> Long.compare(nanos[b], nanos[a]));
+        return ids;
+    }
+
+    private String getName(String type, int id) {
+        String name = null;
+        switch (type) {
+            case "action":
+                name = Logic.getActionName(id);
+                break;
+            case "condition":
+                name = Logic.getConditionName(id);
+                break;
+            case "logic":
+                name = "logic." + id;
+                break;
+        }
+        return (name != null? name : "unknown");
+    }
+}
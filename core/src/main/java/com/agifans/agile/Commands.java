@@ -4,19 +4,22 @@ import com.agifans.agile.AnimatedObject.CycleType;
 import com.agifans.agile.AnimatedObject.MotionType;
 import com.agifans.agile.ScriptBuffer.ScriptBufferEvent;
 import com.agifans.agile.agilib.Logic;
-import com.agifans.agile.agilib.Logic.Action;
-import com.agifans.agile.agilib.Logic.Condition;
-import com.agifans.agile.agilib.Logic.GotoAction;
-import com.agifans.agile.agilib.Logic.IfAction;
 import com.agifans.agile.agilib.Picture;
 import com.agifans.agile.agilib.Sound;
 import com.agifans.agile.agilib.View;
+import com.badlogic.gdx.utils.TimeUtils;
 
 /**
  * Performs the execution of an AGI Logic script.
  */
 public class Commands {
 
+    /**
+     * The maximum number of bytes held by the cache of drawn pictures, which is enough 
+     * for a little under 20 pictures.
+     */
+    private static final int PICTURE_CACHE_SIZE = 4 * 1024 * 1024;
+
     /**
      * The GameState class holds all of the data and state for the Game currently 
      * being run by the interpreter.
@@ -64,6 +67,16 @@ public class Commands {
      */
     private SoundPlayer soundPlayer;
 
+    /**
+     * If set, collects the execution counts and times of each command and Logic.
+     */
+    private CommandProfiler profiler;
+
+    /**
+     * Holds copies of the recently drawn pictures, so that they don't need to be drawn again.
+     */
+    private PictureCache pictureCache;
+
     /**
      * Constructor for Commands.
      *
@@ -88,6 +101,17 @@ public class Commands {
         this.inventory = new Inventory(state, userInput, textGraphics, pixelData);
         this.savedGames = new SavedGames(state, userInput, textGraphics, pixelData, savedGameStore);
         this.soundPlayer = soundPlayer;
+        this.pictureCache = new PictureCache(PICTURE_CACHE_SIZE);
+    }
+
+    /**
+     * Sets the CommandProfiler that will collect execution counts and times for each
+     * command and Logic, or null to turn profiling off.
+     *
+     * @param profiler The CommandProfiler, or null to turn profiling off.
+     */
+    public void setProfiler(CommandProfiler profiler) {
+        this.profiler = profiler;
     }
 
     /**
@@ -99,12 +123,19 @@ public class Commands {
         state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.DRAW_PIC, pictureNum);
         state.restoreBackgrounds();
 
-        // We create a clone of the Picture so that it's drawing state isn't persisted
-        // back to the master list of pictures in the GameState.
-        Picture picture = state.pictures[pictureNum].clone();
-        picture.drawPicture();
+        // If the picture has been drawn recently, then we use a copy of that.
+        String key = Integer.toString(pictureNum);
+        Picture picture = pictureCache.get(key);
+        if (picture == null) {
+            // We create a clone of the Picture so that it's drawing state isn't persisted
+            // back to the master list of pictures in the GameState.
+            picture = state.getPicture(pictureNum).clone();
+            picture.drawPicture();
+            pictureCache.put(key, picture);
+        }
 
         state.currentPicture = picture;
+        state.currentPictureKey = key;
 
         updatePixelArrays();
 
@@ -128,15 +159,11 @@ public class Commands {
      * @param pictureNum The PICTURE resource number to load AGI256 data from.
      */
     private void loadAGI256Picture(int pictureNum) {
-        Picture agi256Picture = state.pictures[pictureNum];
+        Picture agi256Picture = state.getPicture(pictureNum);
         int[] visualPixels = agi256Picture.getVisualPixels();
 
-        // Copy the pixels to our VisualPixels array, doubling each one as we go.
-        for (int i = 0, ii = 0; i < (160 * 168); i++, ii += 2) {
-            int rgba8888Color = visualPixels[i];
-            state.visualPixels[ii + 0] = rgba8888Color;
-            state.visualPixels[ii + 1] = rgba8888Color;
-        }
+        // Copy the pixels to our VisualPixels array. They're doubled in width when shown.
+        System.arraycopy(visualPixels, 0, state.visualPixels, 0, 160 * 168);
 
         state.drawObjects();
         
@@ -152,12 +179,8 @@ public class Commands {
 
         int[] visualPixels = picture.getVisualPixels();
 
-        // Copy the pixels to our VisualPixels array, doubling each one as we go.
-        for (int i = 0, ii = 0; i < (160 * 168); i++, ii += 2) {
-            int rgba8888Color = visualPixels[i];
-            state.visualPixels[ii + 0] = rgba8888Color;
-            state.visualPixels[ii + 1] = rgba8888Color;
-        }
+        // Copy the pixels to our VisualPixels array. They're doubled in width when shown.
+        System.arraycopy(visualPixels, 0, state.visualPixels, 0, 160 * 168);
         
         splitPriorityPixels();
     }
@@ -171,9 +194,20 @@ public class Commands {
         state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.OVERLAY_PIC, pictureNum);
         state.restoreBackgrounds();
 
-        // Draw the overlay picture on top of the current picture.
-        Picture overlayPicture = state.pictures[pictureNum];
-        state.currentPicture.overlayPicture(overlayPicture);
+        // Draw the overlay picture on top of the current picture, unless the same sequence
+        // of pictures has been drawn recently, in which case we use a copy of that.
+        String key = (state.currentPictureKey != null? state.currentPictureKey + "," + pictureNum : null);
+        Picture picture = (key != null? pictureCache.get(key) : null);
+        if (picture != null) {
+            state.currentPicture = picture;
+        } else {
+            Picture overlayPicture = state.getPicture(pictureNum);
+            state.currentPicture.overlayPicture(overlayPicture);
+            if (key != null) {
+                pictureCache.put(key, state.currentPicture);
+            }
+        }
+        state.currentPictureKey = key;
         
         updatePixelArrays();
 
@@ -192,7 +226,7 @@ public class Commands {
      * priority from 4 to 15. To accomplish this, AGI scans directly down the control 
      * priority until it finds some 'non-control' priority".
      */
-    private void splitPriorityPixels() {
+    void splitPriorityPixels() {
         Picture picture = state.currentPicture;
         int[] priorityPixels = picture.getPriorityPixels();
         
@@ -238,13 +272,15 @@ public class Commands {
     public void showPriorityScreen() {
         pixelData.savePixels();
         
-        for (int i = 0, ii = (8 * state.pictureRow) * 320; i < (160 * 168); i++, ii += 2) {
+        int[] priorityScreen = new int[320 * 168];
+        for (int i = 0, ii = 0; i < (160 * 168); i++, ii += 2) {
             int priColorIndex = state.priorityPixels[i];
             int ctrlColorIndex = state.controlPixels[i];
             int rgba8888Color = EgaPalette.colours[ctrlColorIndex <= 3 ? ctrlColorIndex : priColorIndex];
-            pixelData.putPixel(ii + 0, rgba8888Color);
-            pixelData.putPixel(ii + 1, rgba8888Color);
+            priorityScreen[ii + 0] = rgba8888Color;
+            priorityScreen[ii + 1] = rgba8888Color;
         }
+        pixelData.pixelCopy(priorityScreen, (8 * state.pictureRow) * 320, priorityScreen.length);
 
         userInput.waitForKey(true);
 
@@ -256,7 +292,7 @@ public class Commands {
      */
     private void showVisualPixels() {
         // Perform the copy to the pixels array of the VisualPixels. This is where the PictureRow comes in to effect.
-        pixelData.pixelCopy(state.visualPixels, (8 * state.pictureRow) * 320, state.visualPixels.length);
+        pixelData.stretchPixels(state.visualPixels, 0, 160, (8 * state.pictureRow) * 320, 160, 168);
     }
 
     /**
@@ -299,27 +335,26 @@ public class Commands {
 
         pixelData.savePixels();
         
+        // Take a copy of the saved screen, so that it can be blitted in shifted position.
+        int[] backupPixels = new int[320 * 200];
+        for (int screenPos = 0; screenPos < backupPixels.length; screenPos++) {
+            backupPixels[screenPos] = pixelData.getBackupPixel(screenPos);
+        }
+        
         for (int shakeNumber = 0; shakeNumber < shakeCount; shakeNumber++) {
             if ((shakeNumber & 1) == 1) {
                 pixelData.restorePixels();
             }
             else {
-                for (int y = 0, screenPos = 0; y < 200; y++) {
-                    for (int x = 0; x < 320; x++, screenPos++) {
-                        if ((x < 8) || (y < 4)) {
-                            pixelData.putPixel(screenPos, backgroundRGBA8888);
-                        }
-                        else {
-                            pixelData.putPixel(screenPos, pixelData.getBackupPixel(screenPos - 1288));
-                        }
-                    }
+                // Shift the screen 8 pixels right and 4 pixels down, filling the gap with the background.
+                pixelData.fillPixels(0, 320 * 4, backgroundRGBA8888);
+                for (int y = 4; y < 200; y++) {
+                    pixelData.fillPixels(y * 320, 8, backgroundRGBA8888);
                 }
+                pixelData.copyPixels(backupPixels, 0, 320, (4 * 320) + 8, 312, 196);
             }
-            try {
-                Thread.sleep(66);
-            } catch (InterruptedException e) {
-                // Ignore.
-            }
+            pixelData.publishFrame();
+            userInput.pause(4);
         }
 
         pixelData.restorePixels();
@@ -381,14 +416,14 @@ public class Commands {
 
                 case LOAD_PIC:
                     {
-                        Picture pic = state.pictures[scriptBufferEvent.resourceNumber];
+                        Picture pic = state.getPicture(scriptBufferEvent.resourceNumber);
                         if (pic != null) pic.isLoaded = true;
                     }
                     break;
 
                 case LOAD_SOUND:
                     {
-                        Sound sound = state.sounds[scriptBufferEvent.resourceNumber];
+                        Sound sound = state.getSound(scriptBufferEvent.resourceNumber);
                         if (sound != null)
                         {
                             soundPlayer.loadSound(sound);
@@ -399,7 +434,7 @@ public class Commands {
 
                 case LOAD_VIEW:
                     {
-                        View view = state.views[scriptBufferEvent.resourceNumber];
+                        View view = state.getView(scriptBufferEvent.resourceNumber);
                         if (view != null) view.isLoaded = true;
                     }
                     break;
@@ -416,91 +451,115 @@ public class Commands {
     }
 
     /**
-     * Evaluates the given Condition.
+     * Evaluates the compiled Condition at the given offset within the given Logic code,
+     * recording its execution time if a CommandProfiler has been set.
      * 
-     * @param condition The Condition to evaluate.
+     * @param code The compiled code of the Logic that the Condition belongs to.
+     * @param pc The offset of the Condition's opcode within the code.
      * 
      * @return The result of evaluating the Condition; either true or false.
      */
-    private boolean isConditionTrue(Condition condition) {
+    private boolean isConditionTrue(int[] code, int pc) {
+        if (profiler == null) {
+            return evaluateCondition(code, pc);
+        }
+        long startTime = TimeUtils.nanoTime();
+        boolean result = evaluateCondition(code, pc);
+        profiler.recordCondition(code[pc], TimeUtils.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Evaluates the compiled Condition at the given offset within the given Logic code,
+     * without profiling it.
+     * 
+     * @param code The compiled code of the Logic that the Condition belongs to.
+     * @param pc The offset of the Condition's opcode within the code.
+     * 
+     * @return The result of evaluating the Condition; either true or false.
+     */
+    private boolean evaluateCondition(int[] code, int pc) {
         boolean result = false;
         
-        switch (condition.operation.opcode) {
+        // The opcode is followed by the offset of the next Condition, then the operands.
+        int op = pc + 2;
+        
+        switch (code[pc]) {
 
             case 1: // equaln
                 {
-                    result = (state.getVar(condition.operands.get(0).asByte()) == condition.operands.get(1).asByte());
+                    result = (state.getVar(code[op]) == code[op + 1]);
                 }
                 break;
 
             case 2: // equalv
                 {
-                    result = (state.getVar(condition.operands.get(0).asByte()) == state.getVar(condition.operands.get(1).asByte()));
+                    result = (state.getVar(code[op]) == state.getVar(code[op + 1]));
                 }
                 break;
 
             case 3: // lessn
                 {
-                    result = (state.getVar(condition.operands.get(0).asByte()) < condition.operands.get(1).asByte());
+                    result = (state.getVar(code[op]) < code[op + 1]);
                 }
                 break;
 
             case 4: // lessv
                 {
-                    result = (state.getVar(condition.operands.get(0).asByte()) < state.getVar(condition.operands.get(1).asByte()));
+                    result = (state.getVar(code[op]) < state.getVar(code[op + 1]));
                 }
                 break;
 
             case 5: // greatern
                 {
-                    result = (state.getVar(condition.operands.get(0).asByte()) > condition.operands.get(1).asByte());
+                    result = (state.getVar(code[op]) > code[op + 1]);
                 }
                 break;
 
             case 6: // greaterv
                 {
-                    result = (state.getVar(condition.operands.get(0).asByte()) > state.getVar(condition.operands.get(1).asByte()));
+                    result = (state.getVar(code[op]) > state.getVar(code[op + 1]));
                 }
                 break;
 
             case 7: // isset
                 {
-                    result = state.getFlag(condition.operands.get(0).asByte());
+                    result = state.getFlag(code[op]);
                 }
                 break;
 
             case 8: // issetv
                 {
-                    result = state.getFlag(state.getVar(condition.operands.get(0).asByte()));
+                    result = state.getFlag(state.getVar(code[op]));
                 }
                 break;
 
             case 9: // has
                 {
-                    result = (state.objects.objects.get(condition.operands.get(0).asByte()).room == Defines.CARRYING);
+                    result = (state.objects.objects.get(code[op]).room == Defines.CARRYING);
                 }
                 break;
 
             case 10: // obj.in.room
                 {
-                    result = (state.objects.objects.get(condition.operands.get(0).asByte()).room == state.getVar(condition.operands.get(1).asByte()));
+                    result = (state.objects.objects.get(code[op]).room == state.getVar(code[op + 1]));
                 }
                 break;
 
             case 11: // posn
                 {
-                    AnimatedObject aniObj = state.animatedObjects[condition.operands.get(0).asByte()];
-                    int x1 = condition.operands.get(1).asByte();
-                    int y1 = condition.operands.get(2).asByte();
-                    int x2 = condition.operands.get(3).asByte();
-                    int y2 = condition.operands.get(4).asByte();
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    int x1 = code[op + 1];
+                    int y1 = code[op + 2];
+                    int x2 = code[op + 3];
+                    int y2 = code[op + 4];
                     result = ((aniObj.x >= x1) && (aniObj.y >= y1) && (aniObj.x <= x2) && (aniObj.y <= y2));
                 }
                 break;
 
             case 12: // controller
                 {
-                    int controllerNum = condition.operands.get(0).asByte();
+                    int controllerNum = code[op];
                     if (controllerNum < 50) {
                         result = state.controllers[controllerNum];
                     } else {
@@ -525,15 +584,15 @@ public class Commands {
 
             case 14: // said
                 {
-                    result = parser.said(condition.operands.get(0).asInts());
+                    result = parser.said(code, op + 1, code[op]);
                 }
                 break;
 
             case 15: // compare.strings
                 {
                     // Compare two strings. Ignore case, whitespace, and punctuation.
-                    int str1Num = condition.operands.get(0).asByte();
-                    int str2Num = condition.operands.get(1).asByte();
+                    int str1Num = code[op];
+                    int str2Num = code[op + 1];
                     if ((str1Num < Defines.NUMSTRINGS) && (str2Num < Defines.NUMSTRINGS)) {
                         String str1 = state.strings[str1Num].toLowerCase().replaceAll("[ \t.,;:\'!-]", "");
                         String str2 = state.strings[str2Num].toLowerCase().replaceAll("[ \t.,;:\'!-]", "");
@@ -559,33 +618,33 @@ public class Commands {
 
             case 16: // obj.in.box
                 {
-                    AnimatedObject aniObj = state.animatedObjects[condition.operands.get(0).asByte()];
-                    int x1 = condition.operands.get(1).asByte();
-                    int y1 = condition.operands.get(2).asByte();
-                    int x2 = condition.operands.get(3).asByte();
-                    int y2 = condition.operands.get(4).asByte();
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    int x1 = code[op + 1];
+                    int y1 = code[op + 2];
+                    int x2 = code[op + 3];
+                    int y2 = code[op + 4];
                     result = ((aniObj.x >= x1) && (aniObj.y >= y1) && ((aniObj.x + aniObj.xSize() - 1) <= x2) && (aniObj.y <= y2));
                 }
                 break;
 
             case 17: // center.posn
                 {
-                    AnimatedObject aniObj = state.animatedObjects[condition.operands.get(0).asByte()];
-                    int x1 = condition.operands.get(1).asByte();
-                    int y1 = condition.operands.get(2).asByte();
-                    int x2 = condition.operands.get(3).asByte();
-                    int y2 = condition.operands.get(4).asByte();
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    int x1 = code[op + 1];
+                    int y1 = code[op + 2];
+                    int x2 = code[op + 3];
+                    int y2 = code[op + 4];
                     result = ((aniObj.x + (aniObj.xSize() / 2) >= x1) && (aniObj.y >= y1) && (aniObj.x + (aniObj.xSize() / 2) <= x2) && (aniObj.y <= y2));
                 }
                 break;
 
             case 18: // right.posn
                 {
-                    AnimatedObject aniObj = state.animatedObjects[condition.operands.get(0).asByte()];
-                    int x1 = condition.operands.get(1).asByte();
-                    int y1 = condition.operands.get(2).asByte();
-                    int x2 = condition.operands.get(3).asByte();
-                    int y2 = condition.operands.get(4).asByte();
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    int x1 = code[op + 1];
+                    int y1 = code[op + 2];
+                    int x2 = code[op + 3];
+                    int y2 = code[op + 4];
                     result = (((aniObj.x + aniObj.xSize() - 1) >= x1) && (aniObj.y >= y1) && ((aniObj.x + aniObj.xSize() - 1) <= x2) && (aniObj.y <= y2));
                 }
                 break;
@@ -593,8 +652,8 @@ public class Commands {
             case 0xfc: // OR
                 {
                     result = false;
-                    for (Condition orCondition : condition.operands.get(0).asConditions()) {
-                        if (isConditionTrue(orCondition)) {
+                    for (int orPc = op, end = code[pc + 1]; orPc < end; orPc = code[orPc + 1]) {
+                        if (isConditionTrue(code, orPc)) {
                             result = true;
                             break;
                         }
@@ -604,7 +663,7 @@ public class Commands {
 
             case 0xfd: // NOT
                 {
-                    result = !isConditionTrue(condition.operands.get(0).asCondition());
+                    result = !isConditionTrue(code, op);
                 }
                 break;
         }
@@ -613,161 +672,168 @@ public class Commands {
     }
 
     /**
-     * Executes the given Action command.
+     * Executes the compiled Action command identified by the given Action index.
      * 
-     * @param action The Action command to execute.
+     * @param logic The Logic that the Action belongs to.
+     * @param actionNum The index of the Action within the Logic.
      * 
      * @return The index of the next Action to execute, or 0 to rescan logics from top, or -1 when at end of Logic.
      */
-    private int executeAction(Action action) {
+    private int executeAction(Logic logic, int actionNum) {
+        int[] code = logic.code;
+        int pc = logic.actionOffsets[actionNum];
+        
+        // The opcode is immediately followed by the operands.
+        int op = pc + 1;
+        
         // Normally the next Action will be the next one in the Actions list, but this
         // can be overwritten by the If and Goto actions.
-        int nextActionNum = action.logic.addressToActionIndex.get(action.address) + 1;
+        int nextActionNum = actionNum + 1;
 
-        switch (action.operation.opcode) {
+        switch (code[pc]) {
             case 0: // return
                 return -1;
 
             case 1: // increment
                 {
-                    int varNum = action.operands.get(0).asByte();
+                    int varNum = code[op];
                     if (state.getVar(varNum) < 255) state.incrementVar(varNum);
                 }
                 break;
 
             case 2: // decrement
                 {
-                    int varNum = action.operands.get(0).asByte();
+                    int varNum = code[op];
                     if (state.getVar(varNum) > 0) state.decrementVar(varNum);
                 }
                 break;
 
             case 3: // assignn
                 {
-                    int varNum = action.operands.get(0).asByte();
-                    int value = action.operands.get(1).asByte();
+                    int varNum = code[op];
+                    int value = code[op + 1];
                     state.setVar(varNum, value);
                 }
                 break;
 
             case 4: // assignv
                 {
-                    int varNum1 = action.operands.get(0).asByte();
-                    int varNum2 = action.operands.get(1).asByte();
+                    int varNum1 = code[op];
+                    int varNum2 = code[op + 1];
                     state.setVar(varNum1, state.getVar(varNum2));
                 }
                 break;
 
             case 5: // addn
                 {
-                    int varNum = action.operands.get(0).asByte();
-                    int value = action.operands.get(1).asByte();
+                    int varNum = code[op];
+                    int value = code[op + 1];
                     state.setVar(varNum, state.getVar(varNum) + value);
                 }
                 break;
 
             case 6: // addv
                 {
-                    int varNum1 = action.operands.get(0).asByte();
-                    int varNum2 = action.operands.get(1).asByte();
+                    int varNum1 = code[op];
+                    int varNum2 = code[op + 1];
                     state.setVar(varNum1, state.getVar(varNum1) + state.getVar(varNum2));
                 }
                 break;
 
             case 7: // subn
                 {
-                    int varNum = action.operands.get(0).asByte();
-                    int value = action.operands.get(1).asByte();
+                    int varNum = code[op];
+                    int value = code[op + 1];
                     state.setVar(varNum, state.getVar(varNum) - value);
                 } 
                 break;
 
             case 8: // subv
                 {
-                    int varNum1 = action.operands.get(0).asByte();
-                    int varNum2 = action.operands.get(1).asByte();
+                    int varNum1 = code[op];
+                    int varNum2 = code[op + 1];
                     state.setVar(varNum1, state.getVar(varNum1) - state.getVar(varNum2));
                 }
                 break;
 
             case 9: // lindirectv
                 {
-                    int varNum1 = action.operands.get(0).asByte();
-                    int varNum2 = action.operands.get(1).asByte();
+                    int varNum1 = code[op];
+                    int varNum2 = code[op + 1];
                     state.setVar(state.getVar(varNum1), state.getVar(varNum2));
                 }
                 break;
 
             case 10: // rindirect
                 {
-                    int varNum1 = action.operands.get(0).asByte();
-                    int varNum2 = action.operands.get(1).asByte();
+                    int varNum1 = code[op];
+                    int varNum2 = code[op + 1];
                     state.setVar(varNum1, state.getVar(state.getVar(varNum2)));
                 }
                 break;
 
             case 11: // lindirectn
                 {
-                    int varNum = action.operands.get(0).asByte();
-                    int value = action.operands.get(1).asByte();
+                    int varNum = code[op];
+                    int value = code[op + 1];
                     state.setVar(state.getVar(varNum), value);
                 }
                 break;
 
             case 12: // set
                 {
-                    state.setFlag(action.operands.get(0).asByte(), true);
+                    state.setFlag(code[op], true);
                 }
                 break;
 
             case 13: // reset
                 {
-                    state.setFlag(action.operands.get(0).asByte(), false);
+                    state.setFlag(code[op], false);
                 }
                 break;
 
             case 14: // toggle
                 {
-                    int flagNum = action.operands.get(0).asByte();
+                    int flagNum = code[op];
                     state.setFlag(flagNum, !state.getFlag(flagNum));
                 }
                 break;
 
             case 15: // set.v
                 {
-                    state.setFlag(state.getVar(action.operands.get(0).asByte()), true);
+                    state.setFlag(state.getVar(code[op]), true);
                 }
                 break;
 
             case 16: // reset.v
                 {
-                    state.setFlag(state.getVar(action.operands.get(0).asByte()), false);
+                    state.setFlag(state.getVar(code[op]), false);
                 }
                 break;
 
             case 17: // toggle.v
                 {
-                    int flagNum = state.getVar(action.operands.get(0).asByte());
+                    int flagNum = state.getVar(code[op]);
                     state.setFlag(flagNum, !state.getFlag(flagNum));
                 }
                 break;
 
             case 18: // new.room
-                newRoom(action.operands.get(0).asByte());
+                newRoom(code[op]);
                 return 0;
 
             case 19: // new.room.v
-                newRoom(state.getVar(action.operands.get(0).asByte()));
+                newRoom(state.getVar(code[op]));
                 return 0;
 
             case 20: // load.logics
                 {
                     // All logics are already loaded in this interpreter, so nothing to do as such
                     // other than to remember it was "loaded".
-                    Logic logic = state.logics[action.operands.get(0).asByte()];
-                    if ((logic != null) && !logic.isLoaded) {
-                        logic.isLoaded = true;
-                        state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.LOAD_LOGIC, logic.index);
+                    Logic loadLogic = state.logics[code[op]];
+                    if ((loadLogic != null) && !loadLogic.isLoaded) {
+                        loadLogic.isLoaded = true;
+                        state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.LOAD_LOGIC, loadLogic.index);
                     }
                 }
                 break;
@@ -776,17 +842,17 @@ public class Commands {
                 {
                     // All logics are already loaded in this interpreter, so nothing to do as such
                     // other than to remember it was "loaded".
-                    Logic logic = state.logics[state.getVar(action.operands.get(0).asByte())];
-                    if ((logic != null) && !logic.isLoaded) {
-                        logic.isLoaded = true;
-                        state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.LOAD_LOGIC, logic.index);
+                    Logic loadLogic = state.logics[state.getVar(code[op])];
+                    if ((loadLogic != null) && !loadLogic.isLoaded) {
+                        loadLogic.isLoaded = true;
+                        state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.LOAD_LOGIC, loadLogic.index);
                     }
                 }
                 break;
 
             case 22: // call
                 {
-                    if (executeLogic(action.operands.get(0).asByte())) {
+                    if (executeLogic(code[op])) {
                         // This means that a rescan from the top of Logic.0 should be done.
                         return 0;
                     }
@@ -795,7 +861,7 @@ public class Commands {
 
             case 23: // call.v
                 {
-                    if (executeLogic(state.getVar(action.operands.get(0).asByte()))) {
+                    if (executeLogic(state.getVar(code[op]))) {
                         // This means that a rescan from the top of Logic.0 should be done.
                         return 0;
                     }
@@ -804,9 +870,9 @@ public class Commands {
 
             case 24: // load.pic
                 {
-                    // All pictures are already loaded in this interpreter, so nothing to do as such
-                    // other than to remember it was "loaded".
-                    Picture pic = state.pictures[state.getVar(action.operands.get(0).asByte())];
+                    // Getting the picture decodes it, if it hasn't been already, so nothing else to
+                    // do as such other than to remember it was "loaded".
+                    Picture pic = state.getPicture(state.getVar(code[op]));
                     if ((pic != null) && !pic.isLoaded) {
                         pic.isLoaded = true;
                         state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.LOAD_PIC, pic.index);
@@ -816,7 +882,7 @@ public class Commands {
 
             case 25: // draw.pic
                 {
-                    drawPicture(state.getVar(action.operands.get(0).asByte()));
+                    drawPicture(state.getVar(code[op]));
                 }
                 break;
 
@@ -828,9 +894,9 @@ public class Commands {
 
             case 27: // discard.pic
                 {
-                    // All pictures are kept loaded in this interpreter, so nothing to do as such
-                    // other than to remember it was "unloaded".
-                    Picture pic = state.pictures[state.getVar(action.operands.get(0).asByte())];
+                    // A picture that isn't decoded can't be loaded, so it isn't decoded here. Once
+                    // it is "unloaded", it can be evicted if the memory budget needs the space.
+                    Picture pic = state.pictures[state.getVar(code[op])];
                     if ((pic != null) && pic.isLoaded) {
                         pic.isLoaded = false;
                         state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.DISCARD_PIC, pic.index);
@@ -840,7 +906,7 @@ public class Commands {
 
             case 28: // overlay.pic
                 {
-                    overlayPicture(state.getVar(action.operands.get(0).asByte()));
+                    overlayPicture(state.getVar(code[op]));
                 }
                 break;
 
@@ -852,9 +918,9 @@ public class Commands {
 
             case 30: // load.view
                 {
-                    // All views are already loaded in this interpreter, so nothing to do as such
-                    // other than to remember it was "loaded".
-                    View view = state.views[action.operands.get(0).asByte()];
+                    // Getting the view decodes it, if it hasn't been already, so nothing else to
+                    // do as such other than to remember it was "loaded".
+                    View view = state.getView(code[op]);
                     if ((view != null) && !view.isLoaded) {
                         view.isLoaded = true;
                         state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.LOAD_VIEW, view.index);
@@ -864,9 +930,9 @@ public class Commands {
 
             case 31: // load.view.v
                 {
-                    // All views are already loaded in this interpreter, so nothing to do as such
-                    // other than to remember it was "loaded".
-                    View view = state.views[state.getVar(action.operands.get(0).asByte())];
+                    // Getting the view decodes it, if it hasn't been already, so nothing else to
+                    // do as such other than to remember it was "loaded".
+                    View view = state.getView(state.getVar(code[op]));
                     if ((view != null) && !view.isLoaded) {
                         view.isLoaded = true;
                         state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.LOAD_VIEW, view.index);
@@ -876,9 +942,9 @@ public class Commands {
 
             case 32: // discard.view
                 {
-                    // All views are kept loaded in this interpreter, so nothing to do as such
-                    // other than to remember it was "unloaded".
-                    View view = state.views[action.operands.get(0).asByte()];
+                    // A view that isn't decoded can't be loaded, so it isn't decoded here. Once
+                    // it is "unloaded", it can be evicted if the memory budget needs the space.
+                    View view = state.views[code[op]];
                     if ((view != null) && view.isLoaded) {
                         view.isLoaded = false;
                         state.scriptBuffer.addScript(ScriptBuffer.ScriptBufferEventType.DISCARD_VIEW, view.index);
@@ -888,7 +954,7 @@ public class Commands {
 
             case 33: // animate.obj
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.animate();
                 }
                 break;
@@ -906,7 +972,7 @@ public class Commands {
 
             case 35: // draw
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     if (!aniObj.drawn)
                     {
                         aniObj.update = true;
@@ -925,7 +991,7 @@ public class Commands {
 
             case 36: // erase
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     state.restoreBackgrounds(state.updateObjectList);
                     if (!aniObj.update)
                     {
@@ -943,161 +1009,161 @@ public class Commands {
 
             case 37: // position
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.x = aniObj.prevX = (short)action.operands.get(1).asByte();
-                    aniObj.y = aniObj.prevY = (short)action.operands.get(2).asByte();
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.x = aniObj.prevX = (short)code[op + 1];
+                    aniObj.y = aniObj.prevY = (short)code[op + 2];
                 }
                 break;
 
             case 38: // position.v
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.x = aniObj.prevX = (short)state.getVar(action.operands.get(1).asByte());
-                    aniObj.y = aniObj.prevY = (short)state.getVar(action.operands.get(2).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.x = aniObj.prevX = (short)state.getVar(code[op + 1]);
+                    aniObj.y = aniObj.prevY = (short)state.getVar(code[op + 2]);
                 }
                 break;
 
             case 39: // get.posn
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    state.setVar(action.operands.get(1).asByte(), aniObj.x);
-                    state.setVar(action.operands.get(2).asByte(), aniObj.y);
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    state.setVar(code[op + 1], aniObj.x);
+                    state.setVar(code[op + 2], aniObj.y);
                 }
                 break;
 
             case 40: // reposition
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.reposition((byte)state.getVar(action.operands.get(1).asByte()), (byte)state.getVar(action.operands.get(2).asByte()));
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.reposition((byte)state.getVar(code[op + 1]), (byte)state.getVar(code[op + 2]));
                 }
                 break;
 
             case 41: // set.view
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.setView(action.operands.get(1).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.setView(code[op + 1]);
                 }
                 break;
 
             case 42: // set.view.v
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.setView(state.getVar(action.operands.get(1).asByte()));
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.setView(state.getVar(code[op + 1]));
                 }
                 break;
 
             case 43: // set.loop
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.setLoop(action.operands.get(1).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.setLoop(code[op + 1]);
                 }
                 break;
 
             case 44: // set.loop.v
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.setLoop(state.getVar(action.operands.get(1).asByte()));
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.setLoop(state.getVar(code[op + 1]));
                 }
                 break;
 
             case 45: // fix.loop
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.fixedLoop = true;
                 }
                 break;
 
             case 46: // release.loop
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.fixedLoop = false;
                 }
                 break;
 
             case 47: // set.cel
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.setCel(action.operands.get(1).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.setCel(code[op + 1]);
                     aniObj.noAdvance = false;
                 }
                 break;
 
             case 48: // set.cel.v
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.setCel(state.getVar(action.operands.get(1).asByte()));
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.setCel(state.getVar(code[op + 1]));
                     aniObj.noAdvance = false;
                 }
                 break;
 
             case 49: // last.cel
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    state.setVar(action.operands.get(1).asByte(), (aniObj.numberOfCels() - 1));
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    state.setVar(code[op + 1], (aniObj.numberOfCels() - 1));
                 }
                 break;
 
             case 50: // current.cel
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    state.setVar(action.operands.get(1).asByte(), aniObj.currentCel);
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    state.setVar(code[op + 1], aniObj.currentCel);
                 }
                 break;
 
             case 51: // current.loop
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    state.setVar(action.operands.get(1).asByte(), aniObj.currentLoop);
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    state.setVar(code[op + 1], aniObj.currentLoop);
                 }
                 break;
 
             case 52: // current.view
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    state.setVar(action.operands.get(1).asByte(), aniObj.currentView);
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    state.setVar(code[op + 1], aniObj.currentView);
                 }
                 break;
 
             case 53: // number.of.loops
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    state.setVar(action.operands.get(1).asByte(), aniObj.numberOfLoops());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    state.setVar(code[op + 1], aniObj.numberOfLoops());
                 }
                 break;
 
             case 54: // set.priority
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.fixedPriority = true;
-                    aniObj.priority = (byte)action.operands.get(1).asByte();
+                    aniObj.priority = (byte)code[op + 1];
                 }
                 break;
 
             case 55: // set.priority.v
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.fixedPriority = true;
-                    aniObj.priority = (byte)state.getVar(action.operands.get(1).asByte());
+                    aniObj.priority = (byte)state.getVar(code[op + 1]);
                 }
                 break;
 
             case 56: // release.priority
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.fixedPriority = false;
                 }
                 break;
 
             case 57: // get.priority
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    state.setVar(action.operands.get(1).asByte(), aniObj.priority);
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    state.setVar(code[op + 1], aniObj.priority);
                 }
                 break;
 
             case 58: // stop.update
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     if (aniObj.update)
                     {
                         state.restoreBackgrounds();
@@ -1109,7 +1175,7 @@ public class Commands {
 
             case 59: // start.update
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     if (!aniObj.update)
                     {
                         state.restoreBackgrounds();
@@ -1131,41 +1197,41 @@ public class Commands {
 
             case 61: // ignore.horizon
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.ignoreHorizon = true;
                 }
                 break;
 
             case 62: // observe.horizon
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.ignoreHorizon = false;
                 }
                 break;
 
             case 63: // set.horizon
                 {
-                    state.horizon = action.operands.get(0).asByte();
+                    state.horizon = code[op];
                 }
                 break;
 
             case 64: // object.on.water
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.stayOnWater = true;
                 }
                 break;
 
             case 65: // object.on.land
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.stayOnLand = true;
                 }
                 break;
 
             case 66: // object.on.anything
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.stayOnLand = false;
                     aniObj.stayOnWater = false;
                 }
@@ -1173,43 +1239,43 @@ public class Commands {
 
             case 67: // ignore.objs
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.ignoreObjects = true;
                 }
                 break;
 
             case 68: // observe.objs
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.ignoreObjects = false;
                 }
                 break;
 
             case 69: // distance
                 {
-                    AnimatedObject aniObj1 = state.animatedObjects[action.operands.get(0).asByte()];
-                    AnimatedObject aniObj2 = state.animatedObjects[action.operands.get(1).asByte()];
-                    state.setVar(action.operands.get(2).asByte(), aniObj1.distance(aniObj2));
+                    AnimatedObject aniObj1 = state.animatedObjects[code[op]];
+                    AnimatedObject aniObj2 = state.animatedObjects[code[op + 1]];
+                    state.setVar(code[op + 2], aniObj1.distance(aniObj2));
                 }
                 break;
 
             case 70: // stop.cycling
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.cycle = false;
                 }
                 break;
 
             case 71: // start.cycling
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.cycle = true;
                 }
                 break;
 
             case 72: // normal.cycle
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.cycleType = CycleType.NORMAL;
                     aniObj.cycle = true;
                 }
@@ -1217,8 +1283,8 @@ public class Commands {
 
             case 73: // end.of.loop
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    int flagNum = action.operands.get(1).asByte();
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    int flagNum = code[op + 1];
                     aniObj.cycleType = CycleType.END_LOOP;
                     aniObj.update = true;
                     aniObj.cycle = true;
@@ -1230,7 +1296,7 @@ public class Commands {
 
             case 74: // reverse.cycle
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.cycleType = CycleType.REVERSE;
                     aniObj.cycle = true;
                 }
@@ -1238,8 +1304,8 @@ public class Commands {
 
             case 75: // reverse.loop
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    int flagNum = action.operands.get(1).asByte();
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    int flagNum = code[op + 1];
                     aniObj.cycleType = CycleType.REVERSE_LOOP;
                     aniObj.update = true;
                     aniObj.cycle = true;
@@ -1251,14 +1317,14 @@ public class Commands {
 
             case 76: // cycle.time
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.cycleTimeCount = aniObj.cycleTime = state.getVar(action.operands.get(1).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.cycleTimeCount = aniObj.cycleTime = state.getVar(code[op + 1]);
                 }
                 break;
 
             case 77: // stop.motion
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.direction = 0;
                     aniObj.motionType = MotionType.NORMAL;
                     if (aniObj == state.ego)
@@ -1271,7 +1337,7 @@ public class Commands {
 
             case 78: // start.motion
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.motionType = MotionType.NORMAL;
                     if (aniObj == state.ego)
                     {
@@ -1283,81 +1349,81 @@ public class Commands {
 
             case 79: // step.size
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.stepSize = state.getVar(action.operands.get(1).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.stepSize = state.getVar(code[op + 1]);
                 }
                 break;
 
             case 80: // step.time
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.stepTimeCount = aniObj.stepTime = state.getVar(action.operands.get(1).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.stepTimeCount = aniObj.stepTime = state.getVar(code[op + 1]);
                 }
                 break;
 
             case 81: // move.obj
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.startMoveObj(
-                        action.operands.get(1).asByte(), action.operands.get(2).asByte(), 
-                        action.operands.get(3).asByte(), action.operands.get(4).asByte());
+                        code[op + 1], code[op + 2], 
+                        code[op + 3], code[op + 4]);
                 }
                 break;
 
             case 82: // move.obj.v
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.startMoveObj(
-                        state.getVar(action.operands.get(1).asByte()), state.getVar(action.operands.get(2).asByte()),
-                        state.getVar(action.operands.get(3).asByte()), action.operands.get(4).asByte());
+                        state.getVar(code[op + 1]), state.getVar(code[op + 2]),
+                        state.getVar(code[op + 3]), code[op + 4]);
                 }
                 break;
 
             case 83: // follow.ego
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.startFollowEgo(action.operands.get(1).asByte(), action.operands.get(2).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.startFollowEgo(code[op + 1], code[op + 2]);
                 }
                 break;
 
             case 84: // wander
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.startWander();
                 }
                 break;
 
             case 85: // normal.motion
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.motionType = MotionType.NORMAL;
                 }
                 break;
 
             case 86: // set.dir
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.direction = (byte)state.getVar(action.operands.get(1).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.direction = (byte)state.getVar(code[op + 1]);
                 }
                 break;
 
             case 87: // get.dir
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    state.setVar(action.operands.get(1).asByte(), aniObj.direction);
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    state.setVar(code[op + 1], aniObj.direction);
                 }
                 break;
 
             case 88: // ignore.blocks
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.ignoreBlocks = true;
                 }
                 break;
 
             case 89: // observe.blocks
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
                     aniObj.ignoreBlocks = false;
                 }
                 break;
@@ -1365,10 +1431,10 @@ public class Commands {
             case 90: // block
                 {
                     state.blocking = true;
-                    state.blockUpperLeftX = (short)action.operands.get(0).asByte();
-                    state.blockUpperLeftY = (short)action.operands.get(1).asByte();
-                    state.blockLowerRightX = (short)action.operands.get(2).asByte();
-                    state.blockLowerRightY = (short)action.operands.get(3).asByte();
+                    state.blockUpperLeftX = (short)code[op];
+                    state.blockUpperLeftY = (short)code[op + 1];
+                    state.blockLowerRightX = (short)code[op + 2];
+                    state.blockLowerRightY = (short)code[op + 3];
                 }
                 break;
 
@@ -1380,46 +1446,46 @@ public class Commands {
 
             case 92: // get
                 {
-                    state.objects.objects.get(action.operands.get(0).asByte()).room = Defines.CARRYING;
+                    state.objects.objects.get(code[op]).room = Defines.CARRYING;
                 }
                 break;
 
             case 93: // get.v
                 {
-                    state.objects.objects.get(state.getVar(action.operands.get(0).asByte())).room = Defines.CARRYING;
+                    state.objects.objects.get(state.getVar(code[op])).room = Defines.CARRYING;
                 }
                 break;
 
             case 94: // drop
                 {
-                    state.objects.objects.get(action.operands.get(0).asByte()).room = Defines.LIMBO;
+                    state.objects.objects.get(code[op]).room = Defines.LIMBO;
                 }
                 break;
 
             case 95: // put
                 {
-                    state.objects.objects.get(action.operands.get(0).asByte()).room = state.getVar(action.operands.get(1).asByte());
+                    state.objects.objects.get(code[op]).room = state.getVar(code[op + 1]);
                 }
                 break;
 
             case 96: // put.v
                 {
-                    state.objects.objects.get(state.getVar(action.operands.get(0).asByte())).room = state.getVar(action.operands.get(1).asByte());
+                    state.objects.objects.get(state.getVar(code[op])).room = state.getVar(code[op + 1]);
                 }
                 break;
 
             case 97: // get.room.v
                 {
-                    state.setVar(action.operands.get(1).asByte(), state.objects.objects.get(state.getVar(action.operands.get(0).asByte())).room);
+                    state.setVar(code[op + 1], state.objects.objects.get(state.getVar(code[op])).room);
                 }
                 break;
 
             case 98: // load.sound
                 {
-                    // All sounds are already loaded in this interpreter, so nothing to do as such
-                    // other than to remember it was "loaded".
-                    int soundNum = action.operands.get(0).asByte();
-                    Sound sound = state.sounds[soundNum];
+                    // Getting the sound decodes it, if it hasn't been already, so nothing else to
+                    // do as such other than to remember it was "loaded".
+                    int soundNum = code[op];
+                    Sound sound = state.getSound(soundNum);
                     if ((sound != null) && !sound.isLoaded)
                     {
                         soundPlayer.loadSound(sound);
@@ -1431,8 +1497,8 @@ public class Commands {
 
             case 99: // sound
                 {
-                    int soundNum = action.operands.get(0).asByte();
-                    int endFlag = action.operands.get(1).asByte();
+                    int soundNum = code[op];
+                    int endFlag = code[op + 1];
                     state.setFlag(endFlag, false);
                     Sound sound = state.sounds[soundNum];
                     if ((sound != null) && (sound.isLoaded))
@@ -1450,39 +1516,39 @@ public class Commands {
 
             case 101: // print
                 {
-                    this.textGraphics.print(action.logic.messages.get(action.operands.get(0).asByte()));
+                    this.textGraphics.print(logic.messages.get(code[op]));
                 }
                 break;
 
             case 102: // print.v
                 {
-                    this.textGraphics.print(action.logic.messages.get(state.getVar(action.operands.get(0).asByte())));
+                    this.textGraphics.print(logic.messages.get(state.getVar(code[op])));
                 }
                 break;
 
             case 103: // display
                 {
-                    int row = action.operands.get(0).asByte();
-                    int col = action.operands.get(1).asByte();
-                    String message = action.logic.messages.get(action.operands.get(2).asByte());
+                    int row = code[op];
+                    int col = code[op + 1];
+                    String message = logic.messages.get(code[op + 2]);
                     this.textGraphics.display(message, row, col);
                 }
                 break;
 
             case 104: // display.v
                 {
-                    int row = state.getVar(action.operands.get(0).asByte());
-                    int col = state.getVar(action.operands.get(1).asByte());
-                    String message = action.logic.messages.get(state.getVar(action.operands.get(2).asByte()));
+                    int row = state.getVar(code[op]);
+                    int col = state.getVar(code[op + 1]);
+                    String message = logic.messages.get(state.getVar(code[op + 2]));
                     this.textGraphics.display(message, row, col);
                 }
                 break;
 
             case 105: // clear.lines
                 {
-                    int colour = textGraphics.makeBackgroundColour(action.operands.get(2).asByte());
-                    int top = action.operands.get(0).asByte();
-                    int bottom = action.operands.get(1).asByte();
+                    int colour = textGraphics.makeBackgroundColour(code[op + 2]);
+                    int top = code[op];
+                    int bottom = code[op + 1];
                     // AGI doesn't validate these, but AGILE does.
                     if (top > 24) top = 24;
                     if (bottom > 24) bottom = 24;
@@ -1504,22 +1570,22 @@ public class Commands {
 
             case 108: // set.cursor.char
                 {
-                    String cursorStr = action.logic.messages.get(action.operands.get(0).asByte());
+                    String cursorStr = logic.messages.get(code[op]);
                     state.cursorCharacter = (cursorStr.length() > 0? cursorStr.charAt(0) : (char)0);
                 }
                 break;
 
             case 109: // set.text.attribute
                 {
-                    textGraphics.setTextAttribute(action.operands.get(0).asByte(), action.operands.get(1).asByte());
+                    textGraphics.setTextAttribute(code[op], code[op + 1]);
                 }
                 break;
 
             case 110: // shake.screen
                 {
-                    int shakeNum = action.operands.get(0).asByte();
+                    int shakeNum = code[op];
                     if (shakeNum < 100) {
-                        shakeScreen(action.operands.get(0).asByte());
+                        shakeScreen(code[op]);
                     }
                     else {
                         // AGI PAL hack (values 100-109).
@@ -1536,9 +1602,9 @@ public class Commands {
 
             case 111: // configure.screen
                 {
-                    state.pictureRow = action.operands.get(0).asByte();
-                    state.inputLineRow = action.operands.get(1).asByte();
-                    state.statusLineRow = action.operands.get(2).asByte();
+                    state.pictureRow = code[op];
+                    state.inputLineRow = code[op + 1];
+                    state.statusLineRow = code[op + 2];
                 }
                 break;
 
@@ -1559,37 +1625,37 @@ public class Commands {
 
             case 114: // set.string
                 {
-                    int stringNum = action.operands.get(0).asByte();
+                    int stringNum = code[op];
                     // AGI doesn't check this, in fact the Power Pack makes use of that. We
                     // do check the bounds in AGILE though.
                     if (stringNum < Defines.NUMSTRINGS) {
-                        state.strings[stringNum] = action.logic.messages.get(action.operands.get(1).asByte());
+                        state.strings[stringNum] = logic.messages.get(code[op + 1]);
                     }
                 }
                 break;
 
             case 115: // get.string
                 {
-                    textGraphics.getString(action.operands.get(0).asByte(), action.logic.messages.get(action.operands.get(1).asByte()),
-                        action.operands.get(2).asByte(), action.operands.get(3).asByte(), action.operands.get(4).asByte());
+                    textGraphics.getString(code[op], logic.messages.get(code[op + 1]),
+                        code[op + 2], code[op + 3], code[op + 4]);
                 }
                 break;
 
             case 116: // word.to.string
                 {
-                    state.strings[action.operands.get(0).asByte()] = state.recognisedWords.get(action.operands.get(1).asByte());
+                    state.strings[code[op]] = state.recognisedWords.get(code[op + 1]);
                 }
                 break;
 
             case 117: // parse
                 {
-                    parser.parseString(action.operands.get(0).asByte());
+                    parser.parseString(code[op]);
                 }
                 break;
 
             case 118: // get.num
                 {
-                    state.setVar(action.operands.get(1).asByte(), textGraphics.getNum(action.logic.messages.get(action.operands.get(0).asByte())));
+                    state.setVar(code[op + 1], textGraphics.getNum(logic.messages.get(code[op])));
                 }
                 break;
 
@@ -1609,10 +1675,10 @@ public class Commands {
 
             case 121: // set.key
                 {
-                    int keyCode = (action.operands.get(0).asByte() + (action.operands.get(1).asByte() << 8));
+                    int keyCode = (code[op] + (code[op + 1] << 8));
                     if (userInput.keyCodeMap.containsKey(keyCode))
                     {
-                        int controllerNum = action.operands.get(2).asByte();
+                        int controllerNum = code[op + 2];
                         int interKeyCode = userInput.keyCodeMap.get(keyCode);
                         if (state.keyToControllerMap.containsKey(interKeyCode))
                         {
@@ -1627,9 +1693,9 @@ public class Commands {
                 {
                     AnimatedObject picObj = new AnimatedObject(state, -1);
                     picObj.addToPicture(
-                        action.operands.get(0).asByte(), action.operands.get(1).asByte(), action.operands.get(2).asByte(), 
-                        action.operands.get(3).asByte(), action.operands.get(4).asByte(), action.operands.get(5).asByte(), 
-                        action.operands.get(6).asByte(), pixelData);
+                        code[op], code[op + 1], code[op + 2], 
+                        code[op + 3], code[op + 4], code[op + 5], 
+                        code[op + 6], pixelData);
                     splitPriorityPixels();
                     picObj.show(pixelData);
                 }
@@ -1639,10 +1705,10 @@ public class Commands {
                 {
                     AnimatedObject picObj = new AnimatedObject(state, -1);
                     picObj.addToPicture(
-                        state.getVar(action.operands.get(0).asByte()), state.getVar(action.operands.get(1).asByte()), 
-                        state.getVar(action.operands.get(2).asByte()), state.getVar(action.operands.get(3).asByte()), 
-                        state.getVar(action.operands.get(4).asByte()), state.getVar(action.operands.get(5).asByte()),
-                        state.getVar(action.operands.get(6).asByte()), pixelData);
+                        state.getVar(code[op]), state.getVar(code[op + 1]), 
+                        state.getVar(code[op + 2]), state.getVar(code[op + 3]), 
+                        state.getVar(code[op + 4]), state.getVar(code[op + 5]),
+                        state.getVar(code[op + 6]), pixelData);
                     splitPriorityPixels();
                 }
                 break;
@@ -1695,15 +1761,15 @@ public class Commands {
 
             case 129: // show.obj
                 {
-                    inventory.showInventoryObject(action.operands.get(0).asByte());
+                    inventory.showInventoryObject(code[op]);
                 }
                 break;
 
             case 130: // random.num
                 {
-                    int minVal = action.operands.get(0).asByte();
-                    int maxVal = action.operands.get(1).asByte();
-                    state.setVar(action.operands.get(2).asByte(), (((state.random.nextInt(255) % (maxVal - minVal + 1)) + minVal) & 0xFF));
+                    int minVal = code[op];
+                    int maxVal = code[op + 1];
+                    state.setVar(code[op + 2], (((state.random.nextInt(255) % (maxVal - minVal + 1)) + minVal) & 0xFF));
                 }
                 break;
 
@@ -1722,14 +1788,14 @@ public class Commands {
 
             case 133: // obj.status.v
                 {
-                    AnimatedObject aniObj = state.animatedObjects[state.getVar(action.operands.get(0).asByte())];
+                    AnimatedObject aniObj = state.animatedObjects[state.getVar(code[op])];
                     textGraphics.windowPrint(aniObj.getStatusStr());
                 }
                 break;
 
             case 134: // quit
                 {
-                    int quitAction = (action.operands.size() == 0 ? 1 : action.operands.get(0).asByte());
+                    int quitAction = code[op];
                     if ((quitAction == 1) || textGraphics.windowPrint("Press ENTER to quit.\nPress ESC to keep playing."))
                     {
                         soundPlayer.shutdown();
@@ -1787,7 +1853,7 @@ public class Commands {
 
             case 142: // script.size
                 {
-                    state.scriptBuffer.setScriptSize(action.operands.get(0).asByte());
+                    state.scriptBuffer.setScriptSize(code[op]);
                 }
                 break;
 
@@ -1797,7 +1863,7 @@ public class Commands {
 
             case 143: // set.game.id (was max.drawn in AGI v2.001)
                 {
-                    state.gameId = action.logic.messages.get(action.operands.get(0).asByte());
+                    state.gameId = logic.messages.get(code[op]);
                 }
                 break;
 
@@ -1809,21 +1875,21 @@ public class Commands {
 
             case 145: // set.scan.start
                 {
-                    state.scanStart[action.logic.index] = action.getActionNumber() + 1;
+                    state.scanStart[logic.index] = actionNum + 1;
                 }
                 break;
 
             case 146: // reset.scan.start
                 {
-                    state.scanStart[action.logic.index] = 0;
+                    state.scanStart[logic.index] = 0;
                 }
                 break;
 
             case 147: // reposition.to
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.x = (short)action.operands.get(1).asByte();
-                    aniObj.y = (short)action.operands.get(2).asByte();
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.x = (short)code[op + 1];
+                    aniObj.y = (short)code[op + 2];
                     aniObj.repositioned = true;
                     aniObj.findPosition();         // Make sure that this position is OK.
                 }
@@ -1831,9 +1897,9 @@ public class Commands {
 
             case 148: // reposition.to.v
                 {
-                    AnimatedObject aniObj = state.animatedObjects[action.operands.get(0).asByte()];
-                    aniObj.x = (short)state.getVar(action.operands.get(1).asByte());
-                    aniObj.y = (short)state.getVar(action.operands.get(2).asByte());
+                    AnimatedObject aniObj = state.animatedObjects[code[op]];
+                    aniObj.x = (short)state.getVar(code[op + 1]);
+                    aniObj.y = (short)state.getVar(code[op + 2]);
                     aniObj.repositioned = true;
                     aniObj.findPosition();         // Make sure that this position is OK.
                 }
@@ -1853,29 +1919,29 @@ public class Commands {
 
             case 151: // print.at
                 {
-                    String message = action.logic.messages.get(action.operands.get(0).asByte());
-                    int row = action.operands.get(1).asByte();
-                    int col = action.operands.get(2).asByte();
-                    int width = action.operands.get(3).asByte();
+                    String message = logic.messages.get(code[op]);
+                    int row = code[op + 1];
+                    int col = code[op + 2];
+                    int width = code[op + 3];
                     this.textGraphics.printAt(message, row, col, width);
                 }
                 break;
 
             case 152: // print.at.v
                 {
-                    String message = action.logic.messages.get(state.getVar(action.operands.get(0).asByte()));
-                    int row = action.operands.get(1).asByte();
-                    int col = action.operands.get(2).asByte();
-                    int width = action.operands.get(3).asByte();
+                    String message = logic.messages.get(state.getVar(code[op]));
+                    int row = code[op + 1];
+                    int col = code[op + 2];
+                    int width = code[op + 3];
                     this.textGraphics.printAt(message, row, col, width);
                 }
                 break;
 
             case 153: // discard.view.v
                 {
-                    // All views are kept loaded in this interpreter, so nothing to do as such
-                    // other than to remember it was "unloaded".
-                    View view = state.views[state.getVar(action.operands.get(0).asByte())];
+                    // A view that isn't decoded can't be loaded, so it isn't decoded here. Once
+                    // it is "unloaded", it can be evicted if the memory budget needs the space.
+                    View view = state.views[state.getVar(code[op])];
                     if ((view != null) && view.isLoaded)
                     {
                         view.isLoaded = false;
@@ -1886,11 +1952,11 @@ public class Commands {
 
             case 154: // clear.text.rect
                 {
-                    int top = action.operands.get(0).asByte();
-                    int left = action.operands.get(1).asByte();
-                    int bottom = action.operands.get(2).asByte();
-                    int right = action.operands.get(3).asByte();
-                    int colour = textGraphics.makeBackgroundColour(action.operands.get(4).asByte());
+                    int top = code[op];
+                    int left = code[op + 1];
+                    int bottom = code[op + 2];
+                    int right = code[op + 3];
+                    int colour = textGraphics.makeBackgroundColour(code[op + 4]);
                     textGraphics.clearRect(top, left, bottom, right, colour);
                 }
                 break;
@@ -1907,14 +1973,14 @@ public class Commands {
 
             case 156: // set.menu
                 {
-                    menu.setMenu(action.logic.messages.get(action.operands.get(0).asByte()));
+                    menu.setMenu(logic.messages.get(code[op]));
                 }
                 break;
 
             case 157: // set.menu.item
                 {
-                    String menuItemName = action.logic.messages.get(action.operands.get(0).asByte());
-                    byte controllerNum = (byte)action.operands.get(1).asByte();
+                    String menuItemName = logic.messages.get(code[op]);
+                    byte controllerNum = (byte)code[op + 1];
                     menu.setMenuItem(menuItemName, controllerNum);
                 }
                 break;
@@ -1927,13 +1993,13 @@ public class Commands {
 
             case 159: // enable.item
                 {
-                    menu.enableItem(action.operands.get(0).asByte());
+                    menu.enableItem(code[op]);
                 }
                 break;
 
             case 160: // disable.item
                 {
-                    menu.disableItem(action.operands.get(0).asByte());
+                    menu.disableItem(code[op]);
                 }
                 break;
 
@@ -1949,7 +2015,7 @@ public class Commands {
 
             case 162: // show.obj.v
                 {
-                    inventory.showInventoryObject(state.getVar(action.operands.get(0).asByte()));
+                    inventory.showInventoryObject(state.getVar(code[op]));
                 }
                 break;
 
@@ -1967,32 +2033,32 @@ public class Commands {
 
             case 165: // mul.n
                 {
-                    int varNum = action.operands.get(0).asByte();
-                    int value = action.operands.get(1).asByte();
+                    int varNum = code[op];
+                    int value = code[op + 1];
                     state.setVar(varNum, state.getVar(varNum) * value);
                 }
                 break;
 
             case 166: // mul.v
                 {
-                    int varNum1 = action.operands.get(0).asByte();
-                    int varNum2 = action.operands.get(1).asByte();
+                    int varNum1 = code[op];
+                    int varNum2 = code[op + 1];
                     state.setVar(varNum1, state.getVar(varNum1) * state.getVar(varNum2));
                 }
                 break;
 
             case 167: // div.n
                 {
-                    int varNum = action.operands.get(0).asByte();
-                    int value = action.operands.get(1).asByte();
+                    int varNum = code[op];
+                    int value = code[op + 1];
                     state.setVar(varNum, state.getVar(varNum) / value);
                 }
                 break;
 
             case 168: // div.v
                 {
-                    int varNum1 = action.operands.get(0).asByte();
-                    int varNum2 = action.operands.get(1).asByte();
+                    int varNum1 = code[op];
+                    int varNum2 = code[op + 1];
                     state.setVar(varNum1, state.getVar(varNum1) / state.getVar(varNum2));
                 }
                 break;
@@ -2011,10 +2077,10 @@ public class Commands {
                         // The priority screen will have been loaded from a normal AGI PIC, the
                         // visual screen being blank, and so this loads the 256 colour VGA image
                         // into the already loaded normal PICTURE's visual screen.
-                        loadAGI256Picture(state.getVar(action.operands.get(0).asByte()));
+                        loadAGI256Picture(state.getVar(code[op]));
                     }
                     else {
-                        state.simpleName = action.logic.messages.get(action.operands.get(0).asByte());
+                        state.simpleName = logic.messages.get(code[op]);
                     }
                 }
                 break;
@@ -2050,7 +2116,7 @@ public class Commands {
 
             case 174: // set.pri.base
                 {
-                    state.priorityBase = action.operands.get(0).asByte();
+                    state.priorityBase = code[op];
                 }
                 break;
 
@@ -2072,7 +2138,7 @@ public class Commands {
 
             case 177: // allow.menu
                 {
-                    state.menuEnabled = (action.operands.get(0).asByte() != 0);
+                    state.menuEnabled = (code[op] != 0);
                 }
                 break;
 
@@ -2108,15 +2174,16 @@ public class Commands {
 
             case 0xfe: // Unconditional branch: else, goto.
                 {
-                    nextActionNum = ((GotoAction)action).getDestinationActionIndex();
+                    nextActionNum = code[op];
                 }
                 break;
 
             case 0xff: // Conditional branch: if.
                 {
-                    for (Condition condition : action.operands.get(0).asConditions()) {
-                        if (!isConditionTrue(condition)) {
-                            nextActionNum = ((IfAction)action).getDestinationActionIndex();
+                    // The destination is followed by the offset of the end of the Conditions.
+                    for (int conditionPc = op + 2, end = code[op + 1]; conditionPc < end; conditionPc = code[conditionPc + 1]) {
+                        if (!isConditionTrue(code, conditionPc)) {
+                            nextActionNum = code[op];
                             break;
                         }
                     }
@@ -2149,7 +2216,18 @@ public class Commands {
         int actionNum = state.scanStart[logicNum];
 
         // Continually execute the Actions in the Logic until one of them tells us to exit.
-        do actionNum = executeAction(logic.actions.get(actionNum)); while (actionNum > 0);
+        if (profiler == null) {
+            do actionNum = executeAction(logic, actionNum); while (actionNum > 0);
+        } else {
+            profiler.start();
+            do {
+                int opcode = logic.code[logic.actionOffsets[actionNum]];
+                profiler.start();
+                actionNum = executeAction(logic, actionNum);
+                profiler.endAction(opcode);
+            } while (actionNum > 0);
+            profiler.endLogic(logicNum);
+        }
 
         // Restore the previous Logic number before we leave.
         state.currentLogNum = previousLogNum;
@@ -2168,11 +2246,8 @@ public class Commands {
     private void newRoom(int roomNum) {
         // Simulate a slow room change if there is a text window open.
         if (textGraphics.isWindowOpen()) {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                // Ignore
-            }
+            pixelData.publishFrame();
+            userInput.pause(60);
         }
 
         // Turn off sound.
@@ -0,0 +1,295 @@
+package com.agifans.agile;
+
+/**
+ * Tracks which parts of the AGI screen have changed, using a grid of fixed size tiles.
+ * Marking a tile is a single idempotent write, so the Interpreter thread can mark tiles
+ * while the UI thread takes them, without locking and without losing any updates. The
+ * dirty tiles can then be coalesced into a list of rectangles, so that only the changed
+ * regions of the screen need to be uploaded to the GPU.
+ */
+public class DirtyTiles {
+
+    /**
+     * The width of a tile in pixels.
+     */
+    public static final int TILE_WIDTH = 16;
+
+    /**
+     * The height of a tile in pixels.
+     */
+    public static final int TILE_HEIGHT = 8;
+
+    /**
+     * The width of the screen in pixels.
+     */
+    private int width;
+
+    /**
+     * The height of the screen in pixels.
+     */
+    private int height;
+
+    /**
+     * The number of tile columns.
+     */
+    private int columns;
+
+    /**
+     * The number of tile rows.
+     */
+    private int rows;
+
+    /**
+     * The dirty state of each tile, in row-major order.
+     */
+    private boolean[] tiles;
+
+    /**
+     * Constructor for DirtyTiles.
+     *
+     * @param width The width of the screen in pixels.
+     * @param height The height of the screen in pixels.
+     */
+    public DirtyTiles(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.columns = (width + TILE_WIDTH - 1) / TILE_WIDTH;
+        this.rows = (height + TILE_HEIGHT - 1) / TILE_HEIGHT;
+        this.tiles = new boolean[columns * rows];
+    }
+
+    /**
+     * Gets the total number of tiles.
+     *
+     * @return The total number of tiles.
+     */
+    public int getNumOfTiles() {
+        return tiles.length;
+    }
+
+    /**
+     * Marks the tile containing the given screen position as dirty.
+     *
+     * @param screenIndex The screen position, i.e. (y * width) + x
+     */
+    public void markPixel(int screenIndex) {
+        int y = screenIndex / width;
+        int x = screenIndex - (y * width);
+        tiles[((y / TILE_HEIGHT) * columns) + (x / TILE_WIDTH)] = true;
+    }
+
+    /**
+     * Marks all tiles that contain any of the given run of screen positions as dirty.
+     *
+     * @param screenIndex The first screen position, i.e. (y * width) + x
+     * @param length The number of consecutive screen positions.
+     */
+    public void markRange(int screenIndex, int length) {
+        int endIndex = Math.min(screenIndex + length, width * height) - 1;
+        if ((length <= 0) || (endIndex < screenIndex)) {
+            return;
+        }
+        int startRow = screenIndex / width;
+        int endRow = endIndex / width;
+        for (int y = startRow; y <= endRow; y++) {
+            int startX = (y == startRow? screenIndex - (y * width) : 0);
+            int endX = (y == endRow? endIndex - (y * width) : width - 1);
+            int tileRowIndex = (y / TILE_HEIGHT) * columns;
+            for (int column = startX / TILE_WIDTH; column <= endX / TILE_WIDTH; column++) {
+                tiles[tileRowIndex + column] = true;
+            }
+        }
+    }
+
+    /**
+     * Marks every tile as dirty.
+     */
+    public void markAll() {
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = true;
+        }
+    }
+
+    /**
+     * Marks the given tile as dirty.
+     *
+     * @param tileIndex The index of the tile, in row-major order.
+     */
+    public void markTile(int tileIndex) {
+        tiles[tileIndex] = true;
+    }
+
+    /**
+     * Checks whether the given tile is dirty and, if it is, clears it.
+     *
+     * @param tileIndex The index of the tile, in row-major order.
+     *
+     * @return true if the tile was dirty; otherwise false.
+     */
+    public boolean takeTile(int tileIndex) {
+        if (tiles[tileIndex]) {
+            tiles[tileIndex] = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks as dirty every tile that is dirty in the given DirtyTiles.
+     *
+     * @param other The DirtyTiles to merge in to this one.
+     */
+    public void addAll(DirtyTiles other) {
+        for (int i = 0; i < tiles.length; i++) {
+            if (other.tiles[i]) {
+                tiles[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Clears all tiles.
+     */
+    public void clear() {
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = false;
+        }
+    }
+
+    /**
+     * Counts the number of dirty tiles.
+     *
+     * @return The number of dirty tiles.
+     */
+    public int countDirty() {
+        int count = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Receives the runs of screen positions that are covered by the dirty tiles.
+     */
+    public interface RunHandler {
+
+        /**
+         * Handles a run of consecutive screen positions within a single screen row.
+         *
+         * @param screenIndex The first screen position, i.e. (y * width) + x
+         * @param length The number of consecutive screen positions.
+         */
+        void handleRun(int screenIndex, int length);
+    }
+
+    /**
+     * Passes the screen positions of every dirty tile to the given RunHandler, one screen
+     * row at a time, with horizontally adjacent dirty tiles combined into a single run.
+     * Each tile is cleared just before it is handled, and is then marked in the given
+     * DirtyTiles, if there is one.
+     *
+     * @param takenTiles The DirtyTiles in which to mark the tiles that were taken, or null.
+     * @param handler The RunHandler to pass each run of screen positions to.
+     *
+     * @return The number of tiles that were taken.
+     */
+    public int take(DirtyTiles takenTiles, RunHandler handler) {
+        int count = 0;
+        for (int row = 0, tileIndex = 0; row < rows; row++) {
+            int column = 0;
+            while (column < columns) {
+                if (!takeTile(tileIndex + column)) {
+                    column++;
+                    continue;
+                }
+                // Extend to the end of this run of dirty tiles, so it is handled in one go.
+                int startColumn = column++;
+                while ((column < columns) && takeTile(tileIndex + column)) {
+                    column++;
+                }
+                if (takenTiles != null) {
+                    for (int takenColumn = startColumn; takenColumn < column; takenColumn++) {
+                        takenTiles.markTile(tileIndex + takenColumn);
+                    }
+                }
+                count += (column - startColumn);
+
+                int x = startColumn * TILE_WIDTH;
+                int runLength = Math.min(column * TILE_WIDTH, width) - x;
+                int endY = Math.min((row + 1) * TILE_HEIGHT, height);
+                for (int y = row * TILE_HEIGHT; y < endY; y++) {
+                    handler.handleRun((y * width) + x, runLength);
+                }
+            }
+            tileIndex += columns;
+        }
+        return count;
+    }
+
+    /**
+     * Coalesces the dirty tiles into rectangles. Horizontally adjacent dirty tiles form a
+     * run, and runs in consecutive tile rows that have the same extent are merged.
+     *
+     * @param rectangles The array to store the rectangles in, as consecutive x, y, width and height values, in pixels. Must have room for 4 values per tile.
+     *
+     * @return The number of rectangles.
+     */
+    public int getRectangles(int[] rectangles) {
+        int numOfRectangles = 0;
+        int previousRowStart = 0;
+        for (int row = 0, tileIndex = 0; row < rows; row++, tileIndex += columns) {
+            int rowStart = numOfRectangles;
+            int column = 0;
+            while (column < columns) {
+                if (!tiles[tileIndex + column]) {
+                    column++;
+                    continue;
+                }
+                int startColumn = column;
+                while ((column < columns) && tiles[tileIndex + column]) {
+                    column++;
+                }
+                int x = startColumn * TILE_WIDTH;
+                int y = row * TILE_HEIGHT;
+                int w = Math.min(column * TILE_WIDTH, width) - x;
+                int h = Math.min(y + TILE_HEIGHT, height) - y;
+
+                // If a rectangle from the previous tile row has the same extent, grow it.
+                boolean merged = false;
+                for (int i = previousRowStart; i < rowStart; i++) {
+                    int r = i * 4;
+                    if ((rectangles[r] == x) && (rectangles[r + 2] == w) && ((rectangles[r + 1] + rectangles[r + 3]) == y)) {
+                        rectangles[r + 3] += h;
+                        // Move it into this row's section, so it can be grown again by the next row.
+                        swapRectangles(rectangles, i, rowStart - 1);
+                        rowStart--;
+                        merged = true;
+                        break;
+                    }
+                }
+                if (!merged) {
+                    int r = numOfRectangles++ * 4;
+                    rectangles[r] = x;
+                    rectangles[r + 1] = y;
+                    rectangles[r + 2] = w;
+                    rectangles[r + 3] = h;
+                }
+            }
+            previousRowStart = rowStart;
+        }
+        return numOfRectangles;
+    }
+
+    private void swapRectangles(int[] rectangles, int a, int b) {
+        if (a != b) {
+            for (int i = 0; i < 4; i++) {
+                int temp = rectangles[(a * 4) + i];
+                rectangles[(a * 4) + i] = rectangles[(b * 4) + i];
+                rectangles[(b * 4) + i] = temp;
+            }
+        }
+    }
+}
@@ -46,4 +46,37 @@ public class EgaPalette {
         yellow, 
         white
     };
+
+    /**
+     * Maps the top two bits of each of the R, G and B components of an RGBA8888 colour
+     * to the index of the EGA colour with those bits, or -1 if there isn't one. Every EGA
+     * colour component is one of 0x00, 0x55, 0xAA or 0xFF, so no two EGA colours share
+     * the same key.
+     */
+    private final static byte[] indexTable = new byte[64];
+
+    static {
+        for (int key = 0; key < 64; key++) {
+            indexTable[key] = -1;
+        }
+        for (int colourNum = 0; colourNum < 16; colourNum++) {
+            indexTable[tableKey(colours[colourNum])] = (byte)colourNum;
+        }
+    }
+
+    private static int tableKey(int rgba8888Colour) {
+        return ((rgba8888Colour >>> 30) << 4) | (((rgba8888Colour >>> 22) & 0x03) << 2) | ((rgba8888Colour >>> 14) & 0x03);
+    }
+
+    /**
+     * Gets the index of the given RGBA8888 colour within the EGA palette.
+     *
+     * @param rgba8888Colour The RGBA8888 colour to look up.
+     *
+     * @return The EGA colour index, or -1 if the colour is not an EGA colour.
+     */
+    public static int indexOf(int rgba8888Colour) {
+        int colourNum = indexTable[tableKey(rgba8888Colour)];
+        return ((colourNum >= 0) && (colours[colourNum] == rgba8888Colour)? colourNum : -1);
+    }
 }
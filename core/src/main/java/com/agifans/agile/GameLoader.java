@@ -44,8 +44,11 @@ public abstract class GameLoader {
         try {
             if (gameFilesMap.containsKey("words.tok")) {
                 textGraphics.drawString(pixelData, "Loading... Please wait", 72, 88, 15, 0);
+                
+                // Only published frames are shown, so the text must be published to be seen.
+                pixelData.publishFrame();
             }
-            game = new Game(gameFilesMap);
+            game = new Game(gameFilesMap, true);
         }
         finally {
             textGraphics.clearLines(0, 24, 0);
@@ -156,6 +159,11 @@ public abstract class GameLoader {
                     default:
                         break;
                 }
+                
+                // The Actions may have been patched above, so the jumps need to be relinked
+                // and the compiled code rebuilt.
+                logic.link();
+                logic.compile();
             }
         }
 
@@ -1,5 +1,7 @@
 package com.agifans.agile;
 
+import java.nio.ByteBuffer;
+
 import com.agifans.agile.config.AppConfigItem;
 import com.agifans.agile.ui.DialogHandler;
 import com.agifans.agile.ui.GameScreenInputProcessor;
@@ -22,6 +24,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.ui.Touchpad;
 import com.badlogic.gdx.scenes.scene2d.ui.Touchpad.TouchpadStyle;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
+import com.badlogic.gdx.utils.BufferUtils;
 import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.ExtendViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
@@ -36,6 +39,12 @@ public class GameScreen implements Screen {
     private static final int ADJUSTED_WIDTH = ((AGI_SCREEN_HEIGHT / 3) * 4);
     private static final int ADJUSTED_HEIGHT = AGI_SCREEN_HEIGHT;
     
+    /**
+     * If more than this percentage of a screen texture is stale, then the whole texture is 
+     * uploaded in one go rather than uploading each changed region separately.
+     */
+    private static final int FULL_UPLOAD_PERCENTAGE = 50;
+    
     private Agile agile;
     
     private GameScreenInputProcessor gameScreenInputProcessor;
@@ -62,6 +71,28 @@ public class GameScreen implements Screen {
     private Texture[] screens;
     private int drawScreen = 1;
     private int updateScreen = 0;
+    
+    /**
+     * The tiles that were updated in the screen Pixmap by the most recent copy.
+     */
+    private DirtyTiles updatedTiles;
+    
+    /**
+     * For each of the screen textures, the tiles that have changed in the screen Pixmap
+     * since that texture was last uploaded to. Each change is therefore uploaded three 
+     * times, once to each of the rotating textures.
+     */
+    private DirtyTiles[] staleTiles;
+    
+    /**
+     * Holds the rectangles, as x, y, width and height, for a partial texture upload.
+     */
+    private int[] rectangles;
+    
+    /**
+     * Buffer used to pack together the rows of a rectangle for a partial texture upload.
+     */
+    private ByteBuffer uploadBuffer;
 
     // UI components.
     private Texture joystickIcon;
@@ -110,6 +141,13 @@ public class GameScreen implements Screen {
         screens[1].setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Nearest);
         screens[2] = new Texture(screenPixmap, Pixmap.Format.RGBA8888, false);
         screens[2].setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Nearest);
+        updatedTiles = new DirtyTiles(AGI_SCREEN_WIDTH, AGI_SCREEN_HEIGHT);
+        staleTiles = new DirtyTiles[3];
+        for (int i = 0; i < staleTiles.length; i++) {
+            staleTiles[i] = new DirtyTiles(AGI_SCREEN_WIDTH, AGI_SCREEN_HEIGHT);
+        }
+        rectangles = new int[updatedTiles.getNumOfTiles() * 4];
+        uploadBuffer = BufferUtils.newByteBuffer(AGI_SCREEN_WIDTH * AGI_SCREEN_HEIGHT * 4);
     
         camera = new OrthographicCamera();
         viewport = new ExtendViewport(ADJUSTED_WIDTH, ADJUSTED_HEIGHT, camera);
@@ -156,13 +194,75 @@ public class GameScreen implements Screen {
     }
     
     public boolean copyPixels() {
-        agileRunner.updatePixmap(screenPixmap);
-        screens[updateScreen].draw(screenPixmap, 0, 0);
+        if (agileRunner.acquireFrame(screenPixmap, updatedTiles)) {
+            // Every one of the screen textures needs the updated tiles to be uploaded.
+            for (DirtyTiles tiles : staleTiles) {
+                tiles.addAll(updatedTiles);
+            }
+            updatedTiles.clear();
+        }
+        
+        DirtyTiles tiles = staleTiles[updateScreen];
+        int numOfStaleTiles = tiles.countDirty();
+        if (numOfStaleTiles == 0) {
+            // Nothing has changed since this screen texture was last updated.
+            return false;
+        }
+        ByteBuffer framePixels = agileRunner.getFramePixels();
+        boolean fullUpload = ((numOfStaleTiles * 100) > (tiles.getNumOfTiles() * FULL_UPLOAD_PERCENTAGE));
+        if (framePixels != null) {
+            // The frame is uploaded straight from the PixelData's own buffer.
+            if (fullUpload) {
+                screens[updateScreen].bind();
+                framePixels.clear();
+                Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, 0, AGI_SCREEN_WIDTH, AGI_SCREEN_HEIGHT, 
+                        GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, framePixels);
+            } else {
+                uploadTiles(screens[updateScreen], tiles, framePixels);
+            }
+        } else if (fullUpload) {
+            screens[updateScreen].draw(screenPixmap, 0, 0);
+        } else {
+            uploadTiles(screens[updateScreen], tiles, screenPixmap.getPixels());
+        }
+        tiles.clear();
+        
         updateScreen = (updateScreen + 1) % 3;
         drawScreen = (drawScreen + 1) % 3;
         return true;
     }
     
+    /**
+     * Uploads only the regions of the screen pixels covered by the given tiles to the
+     * given Texture. OpenGL ES 2 doesn't support GL_UNPACK_ROW_LENGTH, so the rows of each
+     * rectangle are first packed together into the upload buffer.
+     * 
+     * @param texture The Texture to upload the regions to.
+     * @param tiles The tiles that need to be uploaded.
+     * @param pixels The RGBA8888 screen pixels to upload the regions from.
+     */
+    private void uploadTiles(Texture texture, DirtyTiles tiles, ByteBuffer pixels) {
+        int numOfRectangles = tiles.getRectangles(rectangles);
+        texture.bind();
+        for (int i = 0; i < numOfRectangles; i++) {
+            int x = rectangles[(i * 4) + 0];
+            int y = rectangles[(i * 4) + 1];
+            int width = rectangles[(i * 4) + 2];
+            int height = rectangles[(i * 4) + 3];
+            uploadBuffer.clear();
+            for (int row = y; row < (y + height); row++) {
+                int rowStart = ((row * AGI_SCREEN_WIDTH) + x) * 4;
+                pixels.limit(rowStart + (width * 4));
+                pixels.position(rowStart);
+                uploadBuffer.put(pixels);
+            }
+            pixels.clear();
+            uploadBuffer.flip();
+            Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, x, y, width, height, 
+                    GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, uploadBuffer);
+        }
+    }
+    
     public Texture getDrawScreen() {
         return screens[drawScreen];
     }
@@ -598,6 +698,15 @@ public class GameScreen implements Screen {
      * Saves a screenshot of the machine's current screen contents.
      */
     public void saveScreenshot() {
+        ByteBuffer framePixels = agileRunner.getFramePixels();
+        if (framePixels != null) {
+            // The screen Pixmap isn't kept up to date in this case, so copy in the current frame.
+            ByteBuffer pixmapPixels = screenPixmap.getPixels();
+            framePixels.clear();
+            pixmapPixels.clear();
+            pixmapPixels.put(framePixels);
+            pixmapPixels.clear();
+        }
         agileRunner.saveScreenshot(agile, appConfigItem, screenPixmap);
     }
     
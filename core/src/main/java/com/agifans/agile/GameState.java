@@ -61,6 +61,29 @@ public class GameState {
      */
     public List<AnimatedObject> stoppedObjectList;
 
+    /**
+     * Used by makeObjectDrawList to mark, by object number, the objects that are already in
+     * the list being updated. It is always all false outside of that method.
+     */
+    private boolean[] listedObjects;
+
+    /**
+     * Used by redrawUpdateObjects to mark, by object number, the objects that need to be 
+     * redrawn. It is always all false outside of that method.
+     */
+    private boolean[] redrawObjects;
+
+    /**
+     * Used by redrawUpdateObjects to hold the update list in the order it was last drawn.
+     */
+    private List<AnimatedObject> restoreList;
+
+    /**
+     * Used by redrawUpdateObjects to mark, by object number, the objects in the restoreList.
+     * It is always all false outside of that method.
+     */
+    private boolean[] restoreListed;
+
     /**
      * A Map between a key event code and the matching controller number.
      */
@@ -78,6 +101,13 @@ public class GameState {
      */
     public Picture currentPicture;
 
+    /**
+     * The PictureCache key for what has been drawn on the current Picture, i.e. the number
+     * of the picture drawn by draw.pic followed by the numbers of any overlaid pictures, or 
+     * null if add.to.pic has also drawn on it, in which case it isn't cached.
+     */
+    public String currentPictureKey;
+
     /**
      * The pixel array for the visual data for the current Picture, where the values
      * are the ARGB values. The dimensions of this are 320x168, i.e. two pixels per 
@@ -190,7 +220,7 @@ public class GameState {
         this.recognisedWords = new ArrayList<>();
         this.scriptBuffer = new ScriptBuffer(this);
 
-        this.visualPixels = new int[320 * 168];
+        this.visualPixels = new int[160 * 168];
         this.priorityPixels = new int[160 * 168];
         this.controlPixels = new int[160 * 168];
 
@@ -203,6 +233,10 @@ public class GameState {
 
         this.updateObjectList = new ArrayList<AnimatedObject>();
         this.stoppedObjectList = new ArrayList<AnimatedObject>();
+        this.listedObjects = new boolean[Defines.NUMANIMATED];
+        this.redrawObjects = new boolean[Defines.NUMANIMATED];
+        this.restoreList = new ArrayList<AnimatedObject>();
+        this.restoreListed = new boolean[Defines.NUMANIMATED];
 
         // Store resources in arrays for easy lookup.
         this.logics = this.game.logics;
@@ -283,6 +317,39 @@ public class GameState {
         }
     }
 
+    /**
+     * Gets the given PICTURE, which is decoded if this is the first time it is needed.
+     *
+     * @param pictureNum The number of the PICTURE to get.
+     *
+     * @return The PICTURE, or null if it doesn't exist.
+     */
+    public Picture getPicture(int pictureNum) {
+        return game.getPicture(pictureNum);
+    }
+
+    /**
+     * Gets the given VIEW, which is decoded if this is the first time it is needed.
+     *
+     * @param viewNum The number of the VIEW to get.
+     *
+     * @return The VIEW, or null if it doesn't exist.
+     */
+    public View getView(int viewNum) {
+        return game.getView(viewNum);
+    }
+
+    /**
+     * Gets the given SOUND, which is decoded if this is the first time it is needed.
+     *
+     * @param soundNum The number of the SOUND to get.
+     *
+     * @return The SOUND, or null if it doesn't exist.
+     */
+    public Sound getSound(int soundNum) {
+        return game.getSound(soundNum);
+    }
+
     /**
      * Restores all of the background save areas for the most recently drawn AnimatedObjects.
      */
@@ -323,9 +390,9 @@ public class GameState {
      * @param objectDrawList
      */
     public void drawObjects(List<AnimatedObject> objectDrawList) {
-        // Draw the AnimatedObjects to screen in priority order.
-        for (AnimatedObject aniObj : objectDrawList) {
-            aniObj.draw();
+        // Draw the AnimatedObjects to screen in priority order. An indexed loop avoids creating an Iterator.
+        for (int i = 0; i < objectDrawList.size(); i++) {
+            objectDrawList.get(i).draw();
         }
     }
 
@@ -351,28 +418,145 @@ public class GameState {
      * @param objectShowList
      */
     public void showObjects(PixelData pixelData, List<AnimatedObject> objectShowList) {
-        for (AnimatedObject aniObj : objectShowList)
+        for (int i = 0; i < objectShowList.size(); i++)
         {
+            AnimatedObject aniObj = objectShowList.get(i);
             aniObj.show(pixelData);
+            updateStopped(aniObj);
+        }
+    }
 
-            // Check if the AnimatedObject moved this cycle and if it did then set the flags accordingly. The
-            // position of an AnimatedObject is updated only when the StepTimeCount hits 0, at which point it 
-            // reloads from StepTime. So if the values are equal, this is a step time reload cycle and therefore
-            // the AnimatedObject's position would have been updated and it is appropriate to update Stopped flag.
-            if (aniObj.stepTimeCount == aniObj.stepTime)
+    /**
+     * Updates the Stopped flag and previous position of the given AnimatedObject as per 
+     * the original AGI interpreter behaviour, after it has been shown.
+     * 
+     * @param aniObj The AnimatedObject to update.
+     */
+    private void updateStopped(AnimatedObject aniObj) {
+        // Check if the AnimatedObject moved this cycle and if it did then set the flags accordingly. The
+        // position of an AnimatedObject is updated only when the StepTimeCount hits 0, at which point it 
+        // reloads from StepTime. So if the values are equal, this is a step time reload cycle and therefore
+        // the AnimatedObject's position would have been updated and it is appropriate to update Stopped flag.
+        if (aniObj.stepTimeCount == aniObj.stepTime)
+        {
+            if ((aniObj.x == aniObj.prevX) && (aniObj.y == aniObj.prevY))
             {
-                if ((aniObj.x == aniObj.prevX) && (aniObj.y == aniObj.prevY))
-                {
-                    aniObj.stopped = true;
-                }
-                else
-                {
-                    aniObj.prevX = aniObj.x;
-                    aniObj.prevY = aniObj.y;
-                    aniObj.stopped = false;
+                aniObj.stopped = true;
+            }
+            else
+            {
+                aniObj.prevX = aniObj.x;
+                aniObj.prevY = aniObj.y;
+                aniObj.stopped = false;
+            }
+        }
+    }
+
+    /**
+     * Redraws the AnimatedObjects in the update list, as happens on each animation cycle 
+     * after the objects have moved. This has the same result as restoring the backgrounds
+     * of the update list, remaking it, drawing it, and then showing it, except that only the
+     * objects that have changed since they were last drawn, and those that overlap them, are
+     * restored, drawn and shown. The objects that remain the same are left as they are, 
+     * since restoring and drawing them again would not change any pixels. 
+     * 
+     * @param pixelData The screen pixels to blit the AnimatedObjects to.
+     */
+    public void redrawUpdateObjects(PixelData pixelData) {
+        // Remember the order that the objects were drawn in, as their backgrounds have to be 
+        // restored in the reverse of that order.
+        restoreList.clear();
+        for (int i = 0; i < updateObjectList.size(); i++) {
+            AnimatedObject aniObj = updateObjectList.get(i);
+            restoreList.add(aniObj);
+            restoreListed[aniObj.objectNumber & 0xFF] = true;
+        }
+        makeUpdateObjectList();
+
+        // Mark the objects that have changed. Objects that have left the list still need to be
+        // restored, and new ones need to be drawn.
+        for (int i = 0; i < restoreList.size(); i++) {
+            AnimatedObject aniObj = restoreList.get(i);
+            if (!aniObj.drawn || !aniObj.update) {
+                redrawObjects[aniObj.objectNumber & 0xFF] = true;
+            }
+        }
+        for (int i = 0; i < updateObjectList.size(); i++) {
+            AnimatedObject aniObj = updateObjectList.get(i);
+            int objectNum = (aniObj.objectNumber & 0xFF);
+            if (!restoreListed[objectNum] || aniObj.hasChangedSinceDrawn()) {
+                redrawObjects[objectNum] = true;
+            }
+        }
+
+        // Any object that overlaps the old or new area of an object that is to be redrawn also
+        // needs to be redrawn, as one will be drawn over the other. This is repeated until no 
+        // more are found, since those objects may then overlap others.
+        boolean found;
+        do {
+            found = false;
+            for (int i = 0; i < updateObjectList.size(); i++) {
+                AnimatedObject aniObj = updateObjectList.get(i);
+                int objectNum = (aniObj.objectNumber & 0xFF);
+                if (!redrawObjects[objectNum] && (overlapsRedrawObject(aniObj, restoreList) || overlapsRedrawObject(aniObj, updateObjectList))) {
+                    redrawObjects[objectNum] = true;
+                    found = true;
                 }
             }
+        } while (found);
+
+        // Restore the backgrounds of the marked objects, in the reverse of the order they were drawn.
+        for (int i = restoreList.size(); --i >= 0;) {
+            AnimatedObject aniObj = restoreList.get(i);
+            if (redrawObjects[aniObj.objectNumber & 0xFF]) {
+                aniObj.restoreBackPixels();
+            }
+        }
+
+        // Draw the marked objects in priority order, then show them.
+        for (int i = 0; i < updateObjectList.size(); i++) {
+            AnimatedObject aniObj = updateObjectList.get(i);
+            if (redrawObjects[aniObj.objectNumber & 0xFF]) {
+                aniObj.draw();
+            }
+        }
+        for (int i = 0; i < updateObjectList.size(); i++) {
+            AnimatedObject aniObj = updateObjectList.get(i);
+            if (redrawObjects[aniObj.objectNumber & 0xFF]) {
+                aniObj.show(pixelData);
+            }
+            updateStopped(aniObj);
+        }
+
+        // Clear the marks, ready for next time.
+        for (int i = 0; i < restoreList.size(); i++) {
+            AnimatedObject aniObj = restoreList.get(i);
+            restoreListed[aniObj.objectNumber & 0xFF] = false;
+            redrawObjects[aniObj.objectNumber & 0xFF] = false;
+        }
+        for (int i = 0; i < updateObjectList.size(); i++) {
+            redrawObjects[updateObjectList.get(i).objectNumber & 0xFF] = false;
+        }
+        restoreList.clear();
+    }
+
+    /**
+     * Checks if the given AnimatedObject overlaps any of the objects in the given List that 
+     * are marked to be redrawn.
+     * 
+     * @param aniObj The AnimatedObject to check.
+     * @param objectList The List of objects to check against.
+     * 
+     * @return true if it overlaps an object that is marked to be redrawn; otherwise false.
+     */
+    private boolean overlapsRedrawObject(AnimatedObject aniObj, List<AnimatedObject> objectList) {
+        for (int i = 0; i < objectList.size(); i++) {
+            AnimatedObject other = objectList.get(i);
+            if (redrawObjects[other.objectNumber & 0xFF] && aniObj.overlaps(other)) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -384,26 +568,70 @@ public class GameState {
      * determines what the value of the Update flag should be in order to include an object
      * in the list.
      * 
+     * The List is updated in place rather than rebuilt. Objects that no longer belong in it
+     * are removed, new ones are added to the end, and then an insertion sort moves only 
+     * those objects whose priority or Y position has changed the order. Usually the List 
+     * is already in order, in which case the sort is a single pass.
+     * 
      * @param objsToDraw >
      * @param updating The value of the UPDATE flag to check for when adding to list
      */
     public List<AnimatedObject> makeObjectDrawList(List<AnimatedObject> objsToDraw, boolean updating) {
-        objsToDraw.clear();
+        // Remove the objects that no longer belong in the list, remembering those that remain.
+        int size = 0;
+        for (int i = 0; i < objsToDraw.size(); i++) {
+            AnimatedObject aniObj = objsToDraw.get(i);
+            if (aniObj.drawn && (aniObj.update == updating)) {
+                objsToDraw.set(size++, aniObj);
+                listedObjects[aniObj.objectNumber & 0xFF] = true;
+            }
+        }
+        while (objsToDraw.size() > size) {
+            objsToDraw.remove(objsToDraw.size() - 1);
+        }
 
+        // Add the objects that weren't already in the list.
         for (AnimatedObject aniObj : this.animatedObjects) {
-            if (aniObj.drawn && (aniObj.update == updating)) {
+            int objectNum = (aniObj.objectNumber & 0xFF);
+            if (aniObj.drawn && (aniObj.update == updating) && !listedObjects[objectNum]) {
                 objsToDraw.add(aniObj);
             }
+            listedObjects[objectNum] = false;
         }
 
-        // Sorts them by draw order.
-        objsToDraw.sort(null);
+        // Sorts them by draw order. 
+        for (int i = 1; i < objsToDraw.size(); i++) {
+            AnimatedObject aniObj = objsToDraw.get(i);
+            int index = i;
+            while ((index > 0) && isDrawnAfter(objsToDraw.get(index - 1), aniObj)) {
+                objsToDraw.set(index, objsToDraw.get(index - 1));
+                index--;
+            }
+            if (index != i) {
+                objsToDraw.set(index, aniObj);
+            }
+        }
 
         return objsToDraw;
     }
 
     /**
-     * Recreates and then returns the list of animated objects that are currently
+     * Tests if the first AnimatedObject should be drawn after the second. Objects are drawn
+     * in priority / Y position order, and those that are equal in that respect are drawn in
+     * object number order.
+     * 
+     * @param aniObj1 The first AnimatedObject.
+     * @param aniObj2 The second AnimatedObject.
+     * 
+     * @return true if aniObj1 should be drawn after aniObj2; otherwise false.
+     */
+    private static boolean isDrawnAfter(AnimatedObject aniObj1, AnimatedObject aniObj2) {
+        int order = aniObj1.compareTo(aniObj2);
+        return ((order > 0) || ((order == 0) && ((aniObj1.objectNumber & 0xFF) > (aniObj2.objectNumber & 0xFF))));
+    }
+
+    /**
+     * Updates and then returns the list of animated objects that are currently
      * being updated, in draw order.
      */
     public List<AnimatedObject> makeUpdateObjectList() {
@@ -411,7 +639,7 @@ public class GameState {
     }
 
     /**
-     * Recreates and the returns the list of animated objects that are currently
+     * Updates and then returns the list of animated objects that are currently
      * not being updated, in draw order.
      */
     public List<AnimatedObject> makeStoppedObjectList() {
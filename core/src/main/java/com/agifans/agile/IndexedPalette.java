@@ -0,0 +1,161 @@
+package com.agifans.agile;
+
+/**
+ * Maps the RGBA8888 colours used by the interpreter to small palette indexes, so that a
+ * PixelData implementation can store a palette index per pixel rather than an RGBA8888
+ * value, and only convert to RGBA8888 when the pixels are copied to the Pixmap.
+ *
+ * Index 0 is the cleared state, i.e. 0x00000000. Indexes 1 to 16 are the 16 EGA colours,
+ * and they are followed by the 256 VGA colours that aren't also EGA colours. Any other
+ * colour is given the next free index as it is first seen. A custom palette, as set by the
+ * AGIPAL hack, only changes the output colours for the 16 EGA indexes, so applying it is
+ * the same small amount of work no matter how many pixels there are.
+ *
+ * An IndexedPalette is not thread safe. It is only used by the thread that draws the 
+ * pixels, i.e. the Interpreter thread, which also converts the indexes to RGBA8888 when
+ * it publishes a frame.
+ */
+public class IndexedPalette {
+
+    /**
+     * The palette index of a cleared pixel.
+     */
+    public static final int CLEAR = 0;
+
+    /**
+     * The palette index of the first EGA colour.
+     */
+    private static final int EGA_START = 1;
+
+    /**
+     * The maximum number of colours, which is enough for the cleared state, 16 EGA, 256
+     * VGA, and then up to 256 other colours.
+     */
+    private static final int MAX_COLOURS = 1 + 16 + 256 + 256;
+
+    /**
+     * The size of the colour lookup hash table. Must be a power of two.
+     */
+    private static final int TABLE_SIZE = 2048;
+
+    /**
+     * The RGBA8888 colour that each palette index was created for.
+     */
+    private int[] sourceColours;
+
+    /**
+     * The RGBA8888 colour to output for each palette index, i.e. after the custom palette
+     * has been applied.
+     */
+    private int[] colours;
+
+    /**
+     * The number of palette indexes currently in use.
+     */
+    private int numOfColours;
+
+    /**
+     * Open addressing hash table keys, i.e. the RGBA8888 colours.
+     */
+    private int[] tableColours;
+
+    /**
+     * Open addressing hash table values, i.e. the palette index plus one, so that zero
+     * marks an empty slot.
+     */
+    private short[] tableIndexes;
+
+    /**
+     * Constructor for IndexedPalette.
+     */
+    public IndexedPalette() {
+        sourceColours = new int[MAX_COLOURS];
+        colours = new int[MAX_COLOURS];
+        tableColours = new int[TABLE_SIZE];
+        tableIndexes = new short[TABLE_SIZE];
+
+        addColour(0);
+        for (int colourNum = 0; colourNum < 16; colourNum++) {
+            addColour(EgaPalette.colours[colourNum]);
+        }
+        for (int colourNum = 0; colourNum < 256; colourNum++) {
+            indexOf(VgaPalette.colours[colourNum]);
+        }
+    }
+
+    /**
+     * Gets the palette index for the given RGBA8888 colour, adding the colour if it hasn't
+     * been seen before. If the palette is full, the cleared index is returned. This is 
+     * invoked for every pixel written, and nearly all of them are EGA colours, so those 
+     * are mapped directly to their fixed indexes without using the hash table.
+     *
+     * @param rgba8888Colour The RGBA8888 colour.
+     *
+     * @return The palette index of the colour.
+     */
+    public int indexOf(int rgba8888Colour) {
+        int colourNum = EgaPalette.indexOf(rgba8888Colour);
+        if (colourNum >= 0) {
+            return EGA_START + colourNum;
+        }
+
+        int slot = (rgba8888Colour * 0x9E3779B9) >>> 21;
+        while (tableIndexes[slot] != 0) {
+            if (tableColours[slot] == rgba8888Colour) {
+                return tableIndexes[slot] - 1;
+            }
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        return (numOfColours < MAX_COLOURS? addColour(rgba8888Colour) : CLEAR);
+    }
+
+    private int addColour(int rgba8888Colour) {
+        int index = numOfColours;
+        sourceColours[index] = rgba8888Colour;
+        colours[index] = rgba8888Colour;
+
+        int slot = (rgba8888Colour * 0x9E3779B9) >>> 21;
+        while (tableIndexes[slot] != 0) {
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        tableColours[slot] = rgba8888Colour;
+        tableIndexes[slot] = (short)(index + 1);
+
+        numOfColours++;
+        return index;
+    }
+
+    /**
+     * Gets the RGBA8888 colour to output for the given palette index.
+     *
+     * @param index The palette index.
+     *
+     * @return The RGBA8888 colour to output.
+     */
+    public int getColour(int index) {
+        return colours[index];
+    }
+
+    /**
+     * Gets the RGBA8888 colour that the given palette index was created for, i.e. before
+     * the custom palette was applied.
+     *
+     * @param index The palette index.
+     *
+     * @return The original RGBA8888 colour.
+     */
+    public int getSourceColour(int index) {
+        return sourceColours[index];
+    }
+
+    /**
+     * Sets the output colour for each of the 16 EGA colours.
+     *
+     * @param egaColours The 16 RGBA8888 colours to output for the EGA colours.
+     */
+    public void setEgaColours(int[] egaColours) {
+        for (int colourNum = 0; colourNum < 16; colourNum++) {
+            colours[EGA_START + colourNum] = egaColours[colourNum];
+        }
+    }
+}
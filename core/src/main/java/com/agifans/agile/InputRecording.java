@@ -0,0 +1,255 @@
+package com.agifans.agile;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Records the user input for a game session, tick by tick, along with the seed used for
+ * the GameState's random number generator, so that the exact same session can be replayed
+ * later on. This gives reproducible workloads for profiling and for comparing performance
+ * between builds.
+ *
+ * Keyboard events are recorded as the raw libGDX key events received by UserInput, so that
+ * on replay they go through exactly the same mapping. Mouse state is sampled once per tick
+ * and recorded only when it changes. Each event is tagged with the total ticks value of the
+ * tick that it is to be applied before.
+ *
+ * The recording is stored in a compact binary form, which is a 4 byte header, the 8 byte
+ * seed, a 4 byte event count, and then for each event a variable length tick delta, a type
+ * byte, and a variable length value.
+ */
+public class InputRecording {
+
+    /**
+     * The header that identifies an AGILE input recording, i.e. "AGR1".
+     */
+    private static final byte[] HEADER = { 0x41, 0x47, 0x52, 0x31 };
+
+    // Event types.
+    public static final int KEY_DOWN = 0;
+    public static final int KEY_UP = 1;
+    public static final int KEY_TYPED = 2;
+    public static final int MOUSE_X = 3;
+    public static final int MOUSE_Y = 4;
+    public static final int MOUSE_BUTTON = 5;
+
+    /**
+     * The seed that the GameState's random number generator was seeded with.
+     */
+    private long seed;
+
+    /**
+     * The recorded events, stored as consecutive triples of tick, type and value.
+     */
+    private int[] events;
+
+    /**
+     * The number of events recorded.
+     */
+    private int numOfEvents;
+
+    /**
+     * The total ticks value of the most recent tick. Key events received after this tick
+     * started are tagged as being for the following tick.
+     */
+    private int currentTick;
+
+    /**
+     * The last recorded mouse state, used to only record mouse changes.
+     */
+    private int mouseX;
+    private int mouseY;
+    private int mouseButton;
+
+    /**
+     * During replay, the index of the next event to be applied.
+     */
+    private int replayIndex;
+
+    /**
+     * Constructor for InputRecording.
+     *
+     * @param seed The seed that the GameState's random number generator was seeded with.
+     */
+    public InputRecording(long seed) {
+        this.seed = seed;
+        this.events = new int[3 * 256];
+    }
+
+    /**
+     * Gets the seed that the GameState's random number generator was seeded with.
+     *
+     * @return The random seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the tick of the last recorded event.
+     *
+     * @return The tick of the last recorded event, or 0 if there are no events.
+     */
+    public int getLastTick() {
+        return (numOfEvents > 0? events[(numOfEvents - 1) * 3] : 0);
+    }
+
+    /**
+     * Records that a new tick has started, and samples the mouse state for that tick.
+     *
+     * @param totalTicks The total ticks value of the tick that has just started.
+     * @param variableData The VariableData from which to sample the mouse state.
+     */
+    public void recordTick(int totalTicks, VariableData variableData) {
+        currentTick = totalTicks;
+
+        if (variableData.getMouseX() != mouseX) {
+            mouseX = variableData.getMouseX();
+            addEvent(totalTicks, MOUSE_X, mouseX);
+        }
+        if (variableData.getMouseY() != mouseY) {
+            mouseY = variableData.getMouseY();
+            addEvent(totalTicks, MOUSE_Y, mouseY);
+        }
+        if (variableData.getMouseButton() != mouseButton) {
+            mouseButton = variableData.getMouseButton();
+            addEvent(totalTicks, MOUSE_BUTTON, mouseButton);
+        }
+    }
+
+    /**
+     * Records a key event received by UserInput. It will be applied before the next tick.
+     *
+     * @param type The type of the key event, i.e. KEY_DOWN, KEY_UP or KEY_TYPED.
+     * @param value The keycode or character.
+     */
+    public void recordKeyEvent(int type, int value) {
+        addEvent(currentTick + 1, type, value);
+    }
+
+    private void addEvent(int tick, int type, int value) {
+        if ((numOfEvents * 3) == events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        int index = numOfEvents * 3;
+        events[index] = tick;
+        events[index + 1] = type;
+        events[index + 2] = value;
+        numOfEvents++;
+    }
+
+    /**
+     * Applies all of the recorded events that are to be applied before the given tick, i.e.
+     * those that haven't yet been applied and are tagged with a tick up to the given tick.
+     *
+     * @param totalTicks The total ticks value of the tick that is about to be run.
+     * @param userInput The UserInput to feed the key events in to.
+     * @param variableData The VariableData to set the mouse state in.
+     */
+    public void replay(int totalTicks, UserInput userInput, VariableData variableData) {
+        while ((replayIndex < numOfEvents) && (events[replayIndex * 3] <= totalTicks)) {
+            int index = replayIndex * 3;
+            int value = events[index + 2];
+
+            switch (events[index + 1]) {
+                case KEY_DOWN:
+                    userInput.keyDown(value);
+                    break;
+                case KEY_UP:
+                    userInput.keyUp(value);
+                    break;
+                case KEY_TYPED:
+                    userInput.keyTyped((char)value);
+                    break;
+                case MOUSE_X:
+                    variableData.setMouseX(value);
+                    break;
+                case MOUSE_Y:
+                    variableData.setMouseY(value);
+                    break;
+                case MOUSE_BUTTON:
+                    variableData.setMouseButton(value);
+                    break;
+            }
+
+            replayIndex++;
+        }
+    }
+
+    /**
+     * Converts this InputRecording into its compact binary form.
+     *
+     * @return The byte array containing the recording.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(HEADER, 0, HEADER.length);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int)(seed >> shift) & 0xFF);
+        }
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.write((numOfEvents >> shift) & 0xFF);
+        }
+        for (int i = 0, lastTick = 0; i < numOfEvents; i++) {
+            int index = i * 3;
+            writeVarInt(out, events[index] - lastTick);
+            out.write(events[index + 1]);
+            // Zig-zag encode the value, so that small negative values are also compact.
+            writeVarInt(out, (events[index + 2] << 1) ^ (events[index + 2] >> 31));
+            lastTick = events[index];
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates an InputRecording from its compact binary form.
+     *
+     * @param data The byte array containing the recording.
+     *
+     * @return The InputRecording.
+     */
+    public static InputRecording fromBytes(byte[] data) {
+        for (int i = 0; i < HEADER.length; i++) {
+            if (data[i] != HEADER[i]) {
+                throw new IllegalArgumentException("Not an AGILE input recording.");
+            }
+        }
+        int[] position = { HEADER.length };
+        long seed = 0;
+        for (int i = 0; i < 8; i++) {
+            seed = (seed << 8) | (data[position[0]++] & 0xFF);
+        }
+        int numOfEvents = 0;
+        for (int i = 0; i < 4; i++) {
+            numOfEvents = (numOfEvents << 8) | (data[position[0]++] & 0xFF);
+        }
+        InputRecording recording = new InputRecording(seed);
+        for (int i = 0, tick = 0; i < numOfEvents; i++) {
+            tick += readVarInt(data, position);
+            int type = data[position[0]++] & 0xFF;
+            int value = readVarInt(data, position);
+            recording.addEvent(tick, type, (value >>> 1) ^ -(value & 1));
+        }
+        return recording;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] data, int[] position) {
+        int value = 0;
+        int b;
+        int shift = 0;
+        do {
+            b = data[position[0]++] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -63,6 +63,12 @@ public class Interpreter {
      * for the duration of what would normally be many Ticks. 
      */
     private volatile boolean inTick;
+
+    /**
+     * Whether the idle animation ticks are used to decode resources that the game hasn't 
+     * needed yet. Cleared once there are none left to decode.
+     */
+    private boolean prefetchResources;
     
     /**
      * Constructor for Interpreter.
@@ -78,6 +84,11 @@ public class Interpreter {
         this.state = new GameState(game, variableData);
         this.userInput = userInput;
         this.pixelData = pixelData;
+        
+        // Frames are published before waiting for a key press, so the user sees what they're
+        // responding to. This is done here so that it applies whichever runner is used.
+        this.userInput.setPixelData(pixelData);
+        
         this.textGraphics = new TextGraphics(pixelData, state, userInput);
         this.parser = new Parser(state);
         this.soundPlayer = new SoundPlayer(state, wavePlayer);
@@ -87,7 +98,48 @@ public class Interpreter {
         this.state.init();
         this.textGraphics.updateInputLine();
     }
-    
+
+    /**
+     * Seeds the GameState's random number generator. Used when recording and replaying
+     * user input, so that the random decisions made by the game are also reproduced.
+     *
+     * @param seed The seed for the random number generator.
+     */
+    public void setRandomSeed(long seed) {
+        state.random.setSeed(seed);
+    }
+
+    /**
+     * Sets the CommandProfiler that will collect execution counts and times for each AGI
+     * command and Logic, or null to turn profiling off.
+     *
+     * @param profiler The CommandProfiler, or null to turn profiling off.
+     */
+    public void setCommandProfiler(CommandProfiler profiler) {
+        commands.setProfiler(profiler);
+        userInput.setCommandProfiler(profiler);
+    }
+
+    /**
+     * Turns on or off the decoding of the game's resources, a little at a time, in the 
+     * animation ticks that don't run the interpreter cycle. This is for a Game that was
+     * created in lazy mode, so that its resources are ready before they're needed.
+     *
+     * @param prefetchResources true to decode resources in the idle ticks; otherwise false.
+     */
+    public void setPrefetchResources(boolean prefetchResources) {
+        this.prefetchResources = prefetchResources;
+    }
+
+    /**
+     * Gets the GameState of the game being interpreted.
+     *
+     * @return The GameState.
+     */
+    public GameState getState() {
+        return state;
+    }
+
     /**
      * Executes a single AGI interpreter animation tick. This method is invoked 60 times a
      * second, but the rate at which the logics are run and the animation updated is determined
@@ -100,6 +152,9 @@ public class Interpreter {
 
             // Proceed only if the animation tick count has reached the set animation interval x 3.
             if (++state.animationTicks < (state.getVar(Defines.ANIMATION_INT) * 3)) {
+                if (prefetchResources) {
+                    prefetchResources = state.game.prefetchResource();
+                }
                 inTick = false;
                 return;
             }
@@ -172,6 +227,9 @@ public class Interpreter {
             userInput.copyKeysToOldKeys();
             state.copyMouseButtonToOldMouseButton();
             
+            // The screen is now complete for this cycle, so make it available to be displayed.
+            pixelData.publishFrame();
+            
             inTick = false;
         }
     }
@@ -197,17 +255,15 @@ public class Interpreter {
         state.setVar(Defines.OBJHIT, 0);
         state.setVar(Defines.OBJEDGE, 0);
 
-        // Restore the backgrounds of the previous drawn cels for each AnimatedObject.
-        state.restoreBackgrounds(state.updateObjectList);
-
-        // Ask each AnimatedObject to move if it needs to.
+        // Ask each AnimatedObject to move if it needs to. Moving doesn't depend on the visual or 
+        // priority pixels, so this can happen before the backgrounds are restored, which means
+        // that we know which objects have changed when restoring them.
         for (AnimatedObject aniObj : state.animatedObjects) {
             aniObj.updatePosition();
         }
 
-        // Draw the AnimatedObjects to screen in priority order.
-        state.drawObjects(state.makeUpdateObjectList());
-        state.showObjects(pixelData, state.updateObjectList);
+        // Restore the backgrounds of the changed objects, then draw them to screen in priority order.
+        state.redrawUpdateObjects(pixelData);
 
         // Clear the 'must be on water or land' bits for ego.
         state.ego.stayOnLand = false;
@@ -357,6 +413,7 @@ public class Interpreter {
 
         // Check all waiting characters.
         int ch;
+        Integer controllerNum;
         while ((ch = userInput.getKey()) > 0) {
             // Direction keys are checked first
             if (isDirectionKey(ch) && state.userControl && !state.holdKey) {
@@ -377,8 +434,8 @@ public class Interpreter {
                 }
             }
             // Then check controller matches. They take precedence.
-            else if (state.keyToControllerMap.containsKey(ch)) {
-                state.controllers[state.keyToControllerMap.get(ch)] = true;
+            else if ((controllerNum = state.keyToControllerMap.get(ch)) != null) {
+                state.controllers[controllerNum] = true;
             }
             else if ((ch & 0xF0000) == UserInput.ASCII) {  // Standard char from a keypress event.
                 char character = (char)(ch & 0xFF);
@@ -150,7 +150,7 @@ public class Inventory {
         aniObj.previousCel = aniObj.cel();
 
         // Display the description in a window along with the item picture.
-        textGraphics.windowPrint(state.views[viewNumber].description, aniObj);
+        textGraphics.windowPrint(state.getView(viewNumber).description, aniObj);
 
         // Restore the pixels that were behind the item's image.
         aniObj.restoreBackPixels();
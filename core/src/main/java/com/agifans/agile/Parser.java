@@ -18,12 +18,17 @@ public class Parser {
      * These are the characters that separate words in the user input string (although
      * usually it would be space).
      */
-    private String SEPARATORS = "[ ,.?!();:\\[\\]{}]+";
+    private static final String SEPARATORS = " ,.?!();:[]{}";
 
     /**
-     * A regex matching the characters to be deleted from the user input string.
+     * The characters to be deleted from the user input string.
      */
-    private String IGNORE_CHARS = "['`\\-\"]";
+    private static final String IGNORE_CHARS = "'`-\"";
+
+    /**
+     * Reused to build the sanitised input line, rather than using regular expressions.
+     */
+    private StringBuilder sanitisedInput;
 
     /**
      * Special word number that matches any word.
@@ -49,6 +54,7 @@ public class Parser {
     public Parser(GameState state) {
         this.state = state;
         this.recognisedWordNumbers = new ArrayList<Integer>();
+        this.sanitisedInput = new StringBuilder();
     }
 
     /**
@@ -69,7 +75,7 @@ public class Parser {
         this.recognisedWordNumbers.clear();
 
         // Remove ignored characters and collapse separators into a single space char.
-        String sanitisedInputLine = inputLine.toLowerCase().replaceAll(IGNORE_CHARS, "").replaceAll(SEPARATORS, " ").trim();
+        String sanitisedInputLine = sanitise(inputLine);
 
         if (sanitisedInputLine.length() > 0) {
             int inputLineStartPos = 0;
@@ -120,6 +126,44 @@ public class Parser {
         }
     }
 
+    /**
+     * Sanitises the given user input line, by converting it to lower case, removing the
+     * ignored characters, collapsing each run of separators in to a single space char, and
+     * then trimming any white space from either end.
+     * 
+     * @param inputLine The user input line to sanitise.
+     * 
+     * @return The sanitised user input line.
+     */
+    private String sanitise(String inputLine) {
+        String lowerCaseInputLine = inputLine.toLowerCase();
+        sanitisedInput.setLength(0);
+        boolean inSeparators = false;
+        for (int i = 0; i < lowerCaseInputLine.length(); i++) {
+            char ch = lowerCaseInputLine.charAt(i);
+            if (IGNORE_CHARS.indexOf(ch) >= 0) {
+                continue;
+            }
+            if (SEPARATORS.indexOf(ch) >= 0) {
+                if (!inSeparators) {
+                    sanitisedInput.append(' ');
+                    inSeparators = true;
+                }
+            }
+            else {
+                sanitisedInput.append(ch);
+                inSeparators = false;
+            }
+        }
+
+        // Same as String.trim, i.e. removes space and control characters from both ends.
+        int start = 0;
+        int end = sanitisedInput.length();
+        while ((start < end) && (sanitisedInput.charAt(start) <= ' ')) start++;
+        while ((end > start) && (sanitisedInput.charAt(end - 1) <= ' ')) end--;
+        return sanitisedInput.substring(start, end);
+    }
+
     /**
      * Implements the 'parse' AGI command. What it does is to parse a string as if it
      * was the normal user input line. It does this simply by calling the Parse method 
@@ -148,11 +192,13 @@ public class Parser {
      * the words in the word list. The special word 'anyword' (or whatever is defined 
      * word list as word 1 in 'WORDS.TOK') matches any non-ignored word in the input.
      *
-     * @param words The List of words to test if the user has said.
+     * @param wordNumbers The array holding the word numbers to test if the user has said.
+     * @param offset The offset within the array of the first word number.
+     * @param numOfWords The number of word numbers to test.
      * 
      * @param true if the user has said the given words; otherwise false.
      */
-    public boolean said(List<Integer> wordNumbers) {
+    public boolean said(int[] wordNumbers, int offset, int numOfWords) {
         // If there are no recognised words then we obviously didn't say what we're testing against.
         if (this.recognisedWordNumbers.size() == 0) return false;
 
@@ -160,8 +206,8 @@ public class Parser {
         if (!state.getFlag(Defines.INPUT) || state.getFlag(Defines.HADMATCH)) return false;
 
         // Compare each word number in order.
-        for (int i=0; i < wordNumbers.size(); i++) {
-            int testWordNumber = wordNumbers.get(i);
+        for (int i=0; i < numOfWords; i++) {
+            int testWordNumber = wordNumbers[offset + i];
 
             // If test word number matches the rest of the line, then it's a match.
             if (testWordNumber == REST_OF_LINE) {
@@ -179,7 +225,7 @@ public class Parser {
         }
 
         // If more words were entered than in the said, and there obviously wasn't a REST_OF_LINE, then no match.
-        if (state.recognisedWords.size() > wordNumbers.size()) return false;
+        if (state.recognisedWords.size() > numOfWords) return false;
 
         // Otherwise if we get this far without having exited already, it is a match.
         state.setFlag(Defines.HADMATCH, true);
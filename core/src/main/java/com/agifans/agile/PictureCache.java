@@ -0,0 +1,73 @@
+package com.agifans.agile;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.agifans.agile.agilib.Picture;
+
+/**
+ * A cache of fully drawn pictures, so that when a room is entered again, its picture 
+ * can be copied rather than having all of its lines and flood fills drawn again. The 
+ * key is the number of the picture drawn by draw.pic, followed by the numbers of the 
+ * pictures that were then drawn on top of it by overlay.pic, in order, e.g. "12,40,41".
+ * The least recently used pictures are evicted once the cache is full.
+ */
+public class PictureCache {
+
+    /**
+     * The number of bytes held by each cached picture, i.e. the visual and priority screens.
+     */
+    private static final int PICTURE_SIZE = 2 * 160 * 168 * 4;
+
+    /**
+     * The maximum number of pictures that the cache will hold.
+     */
+    private int maxPictures;
+
+    /**
+     * The cached pictures, in order from least to most recently used.
+     */
+    private LinkedHashMap<String, Picture> pictures;
+
+    /**
+     * Constructor for PictureCache.
+     *
+     * @param maxBytes The maximum number of bytes that the cached pictures can take up.
+     */
+    public PictureCache(int maxBytes) {
+        this.maxPictures = maxBytes / PICTURE_SIZE;
+        this.pictures = new LinkedHashMap<String, Picture>(16, 0.75f, true);
+    }
+
+    /**
+     * Gets a copy of the cached picture for the given key, which can then be drawn on.
+     *
+     * @param key The key of the drawn picture.
+     *
+     * @return A copy of the cached picture, or null if it isn't in the cache.
+     */
+    public Picture get(String key) {
+        Picture picture = pictures.get(key);
+        return (picture != null? picture.copy() : null);
+    }
+
+    /**
+     * Adds a copy of the given drawn picture to the cache, evicting the least recently 
+     * used pictures if the cache is then over its size limit.
+     *
+     * @param key The key of the drawn picture.
+     * @param picture The drawn picture.
+     */
+    public void put(String key, Picture picture) {
+        if (maxPictures > 0) {
+            pictures.put(key, picture.copy());
+
+            Iterator<Picture> iterator = pictures.values().iterator();
+            while (pictures.size() > maxPictures) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+}
@@ -1,7 +1,6 @@
 package com.agifans.agile;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
 
 import com.badlogic.gdx.graphics.Pixmap;
 
@@ -18,30 +17,25 @@ import com.badlogic.gdx.graphics.Pixmap;
 public abstract class PixelData {
     
     /**
-     * Map between the normal EGA palette and the currently set custom palette.
+     * The colour to output for each of the 16 EGA colours, indexed by EGA colour number.
+     * This is the standard EGA palette unless a custom palette has been set.
      */
-    protected Map<Integer, Integer> egaToPaletteMap;
+    protected int[] paletteColours;
         
     /**
      * Constructor for PixelData.
      */
     public PixelData() {
-        egaToPaletteMap = new HashMap<>();
-        
-        // By default, the palette map is simply between the standard EGA palette and itself.
-        for (int colourNum=0; colourNum < 16; colourNum++) {
-            egaToPaletteMap.put(EgaPalette.colours[colourNum], EgaPalette.colours[colourNum]);
-        }
+        // By default, the palette is simply the standard EGA palette.
+        paletteColours = EgaPalette.colours.clone();
     }
     
     /**
      * Clears the state of the PixelData back to its initial state.
      */
     public void clearState() {
-        // By default, the palette map is simply between the standard EGA palette and itself.
-        for (int colourNum=0; colourNum < 16; colourNum++) {
-            egaToPaletteMap.put(EgaPalette.colours[colourNum], EgaPalette.colours[colourNum]);
-        }
+        // By default, the palette is simply the standard EGA palette.
+        System.arraycopy(EgaPalette.colours, 0, paletteColours, 0, 16);
         
         clearPixels();
     }
@@ -53,13 +47,24 @@ public abstract class PixelData {
      * @param newPalette
      */
     public void setPalette(int[] newPalette) {
-        for (int colourNum=0; colourNum < 16; colourNum++) {
-            egaToPaletteMap.put(EgaPalette.colours[colourNum], newPalette[colourNum]);
-        }
+        System.arraycopy(newPalette, 0, paletteColours, 0, 16);
         
         updatePixelsForNewPalette();
     }
     
+    /**
+     * Converts an RGBA8888 colour from the EGA palette to the equivalent colour in the
+     * currently set palette. Colours that are not in the EGA palette are returned as is.
+     * 
+     * @param rgba8888Colour The RGBA8888 colour to convert.
+     * 
+     * @return The RGBA8888 colour to output.
+     */
+    protected int toPaletteColour(int rgba8888Colour) {
+        int colourNum = EgaPalette.indexOf(rgba8888Colour);
+        return (colourNum >= 0? paletteColours[colourNum] : rgba8888Colour);
+    }
+    
     /**
      * Applies the newly set palette to the pixels array.
      */
@@ -92,7 +97,76 @@ public abstract class PixelData {
      * @param agiScreenLength
      */
     public abstract void pixelCopy(int[] rgba888Src, int agiScreenIndex, int agiScreenLength);
-    
+
+    /**
+     * Copies a rectangle of RGBA8888 pixels into the pixel data. The source rows are
+     * srcStride pixels apart, and the destination rows are a screen width apart. Rows that
+     * fall outside the pixel data are ignored.
+     *
+     * @param rgba8888Src The source pixels, e.g. the VisualPixels array.
+     * @param srcPos The position in the source of the top left pixel of the rectangle.
+     * @param srcStride The number of pixels from the start of one source row to the next.
+     * @param agiScreenIndex AGI screen position of the top left of the rectangle, i.e. (y * 320) + x
+     * @param width The width of the rectangle in pixels.
+     * @param height The height of the rectangle in pixels.
+     */
+    public abstract void copyPixels(int[] rgba8888Src, int srcPos, int srcStride, int agiScreenIndex, int width, int height);
+
+    /**
+     * Copies a rectangle of RGBA8888 pixels into the pixel data, stretching it to twice
+     * the width, i.e. each source pixel is written to two adjacent screen pixels. This is
+     * used to blit the 160 pixel wide AGI picture area to the 320 pixel wide screen. Rows
+     * that fall outside the pixel data are ignored.
+     *
+     * @param rgba8888Src The source pixels, e.g. the VisualPixels array.
+     * @param srcPos The position in the source of the top left pixel of the rectangle.
+     * @param srcStride The number of pixels from the start of one source row to the next.
+     * @param agiScreenIndex AGI screen position of the top left of the rectangle, i.e. (y * 320) + x
+     * @param width The width of the rectangle in source pixels, i.e. half the width on screen.
+     * @param height The height of the rectangle in pixels.
+     */
+    public abstract void stretchPixels(int[] rgba8888Src, int srcPos, int srcStride, int agiScreenIndex, int width, int height);
+
+    /**
+     * Sets a run of consecutive pixels to the same colour, using an AGI starting screen
+     * index (i.e. (y * 320) + x) and length in pixels. Pixels that fall outside the pixel
+     * data are ignored.
+     *
+     * @param agiScreenIndex AGI screen position of the first pixel, i.e. (y * 320) + x
+     * @param agiScreenLength The number of pixels to set.
+     * @param rgba8888Colour The RGBA8888 colour to set the pixels to.
+     */
+    public abstract void fillPixels(int agiScreenIndex, int agiScreenLength, int rgba8888Colour);
+
+    /**
+     * Draws an 8x8 glyph, such as a character from the IBM BIOS font, where each element is a
+     * row of the glyph and the most significant bit is the leftmost pixel. Set bits are
+     * drawn in the foreground colour and clear bits in the background colour. In half tone
+     * mode, only every other pixel is drawn, in a checkerboard pattern that starts with
+     * the top left pixel.
+     *
+     * @param glyphData The array holding the glyph.
+     * @param glyphPos The position in glyphData of the top row of the glyph.
+     * @param agiScreenIndex AGI screen position of the top left of the glyph, i.e. (y * 320) + x
+     * @param foregroundRGBA8888 The RGBA8888 foreground colour.
+     * @param backgroundRGBA8888 The RGBA8888 background colour.
+     * @param halfTone If true then only half of the pixels are drawn.
+     */
+    public abstract void drawGlyph(int[] glyphData, int glyphPos, int agiScreenIndex, int foregroundRGBA8888, int backgroundRGBA8888, boolean halfTone);
+
+    /**
+     * Gets the mask of the glyph row pixels that are drawn by drawGlyph, where the most
+     * significant bit of the lowest byte is the leftmost pixel.
+     *
+     * @param row The row of the glyph, from 0 to 7.
+     * @param halfTone Whether the glyph is being drawn in half tone mode.
+     *
+     * @return The mask of the pixels to draw.
+     */
+    protected static int glyphRowMask(int row, boolean halfTone) {
+        return (halfTone? ((row & 1) == 0? 0xAA : 0x55) : 0xFF);
+    }
+
     /**
      * Saves all pixels to a backup copy of the pixel data. 
      */
@@ -129,9 +203,40 @@ public abstract class PixelData {
     public abstract int getBackupPixel(int agiScreenIndex);
     
     /**
-     * Updates Pixmap with the latest local changes. 
+     * Publishes the current pixels as a complete frame, for the UI thread to display. This
+     * is invoked by the Interpreter thread whenever the screen is in a state that the user
+     * should see, i.e. at the end of each animation tick, and before it waits for something,
+     * such as a key press. Pixels drawn after the last call to publishFrame are never seen
+     * by the UI thread, so it can't display a partially drawn sprite or window. Does nothing
+     * if no pixels have changed since the last frame was published.
+     */
+    public abstract void publishFrame();
+    
+    /**
+     * Acquires the most recently published frame for the UI thread, if it hasn't already
+     * been acquired. Many AGI scenes are static for seconds at a time, so this allows the 
+     * UI thread to skip the texture upload when nothing has changed. The tiles that differ
+     * from the previously acquired frame are marked in the given DirtyTiles, so that only
+     * those parts of the screen textures need to be uploaded. 
+     * 
+     * Implementations either copy the frame in to the given Pixmap, or keep the frame in 
+     * a buffer of their own, which is then returned by getFramePixels.
+     * 
+     * @param pixmap The Pixmap to update.
+     * @param updatedTiles The DirtyTiles in which to mark the tiles that were updated.
+     * 
+     * @return true if a new frame was acquired; otherwise false.
+     */
+    public abstract boolean acquireFrame(Pixmap pixmap, DirtyTiles updatedTiles);
+    
+    /**
+     * Gets the RGBA8888 pixels of the frame that was acquired by the last acquireFrame 
+     * call, for implementations that keep their own frame buffers rather than updating 
+     * the Pixmap. Such buffers can be uploaded straight to the GPU. 
      * 
-     * @param pixmap 
+     * @return The frame pixels in R, G, B, A byte order, or null if acquireFrame updates the Pixmap.
      */
-    public abstract void updatePixmap(Pixmap pixmap);
+    public ByteBuffer getFramePixels() {
+        return null;
+    }
 }
@@ -1,7 +1,14 @@
 package com.agifans.agile;
 
+import com.agifans.agile.agilib.View.Cel;
+
 /**
  * Holds data about an AnimatedObject's background save area.
+ * 
+ * The background pixels are stored in flat row-major arrays, i.e. the pixel at (x, y) is
+ * at index (y * width) + x, so that each row can be saved and restored with a single copy.
+ * The arrays are reused from one animation cycle to the next, and only ever grow, so once
+ * they're big enough for the largest cel the object shows, no further arrays are allocated.
  */
 public class SaveArea {
 
@@ -13,8 +20,45 @@ public class SaveArea {
     
     public int height;
     
-    public int[][] visBackPixels;
+    /**
+     * Whether the background pixels hold a saved background that can be restored.
+     */
+    public boolean saved;
+    
+    /**
+     * Whether the background has been restored since the object was last drawn, i.e. the
+     * object is no longer drawn over it.
+     */
+    public boolean restored;
+    
+    /**
+     * The cel that was drawn over the background.
+     */
+    public Cel cel;
+    
+    /**
+     * The priority that the cel was drawn with.
+     */
+    public byte priority;
+    
+    public int[] visBackPixels = new int[0];
     
-    public int[][] priBackPixels;
+    public int[] priBackPixels = new int[0];
     
+    /**
+     * Sets the size of the save area, growing the background pixel arrays if they aren't
+     * already big enough to hold it.
+     * 
+     * @param width The width of the save area.
+     * @param height The height of the save area.
+     */
+    public void resize(int width, int height) {
+        int size = width * height;
+        if (visBackPixels.length < size) {
+            visBackPixels = new int[size];
+            priBackPixels = new int[size];
+        }
+        this.width = width;
+        this.height = height;
+    }
 }
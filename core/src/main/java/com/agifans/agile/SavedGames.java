@@ -801,6 +801,7 @@ public class SavedGames {
         state.userControl = ((savedGameData[344] & 0xFF) + ((savedGameData[345] & 0xFF) << 8)) == 1;
         // [315] 346 - 347(2 bytes) Current PICTURE number
         state.currentPicture = null; // Will be set via load.pic script entry later on.
+        state.currentPictureKey = null;
         // [317] 348 - 349(2 bytes) Blocking flag (1 = true, 0 = false)
         state.blocking = ((savedGameData[348] & 0xFF) + ((savedGameData[349] & 0xFF) << 8)) == 1;
 
@@ -21,7 +21,8 @@ public class SoundPlayer {
     private GameState state;
 
     /**
-     * A cache of the generated WAVE data for loaded sounds.
+     * A cache of the generated WAVE data for loaded sounds. Only the sounds that are 
+     * currently loaded are kept.
      */
     public Map<Integer, byte[]> soundCache;
 
@@ -129,6 +130,10 @@ public class SoundPlayer {
         // Use the samples to create a Wave file. These can be several MB in size (e.g. 5MB, 8MB, 10MB)
         byte[] waveData = createWave(sampleStream.toByteArray());
         
+        // The WAVs of sounds that are no longer loaded can't be played, and would be generated
+        // again if the sound was loaded again, so there's no point keeping them around.
+        this.soundCache.keySet().removeIf(soundNum -> (state.sounds[soundNum] == null) || !state.sounds[soundNum].isLoaded);
+        
         // Cache for use when the sound is played. This reduces overhead of generating WAV on every play.
         this.soundCache.put(sound.index, waveData);
     }
@@ -84,6 +84,12 @@ public class TextGraphics {
 
     private char escapeChar = '\\';         /* the escape character */
 
+    /**
+     * Reused on every cycle to build the user input line, so that redrawing it doesn't 
+     * create any garbage.
+     */
+    private StringBuilder inputLine = new StringBuilder();
+
     /**
      * The GameState class holds all of the data and state for the Game currently 
      */
@@ -176,9 +182,7 @@ public class TextGraphics {
         int endPos = ((bottom + 1) * 8 * 320) - 1;
         int colour = EgaPalette.colours[backgroundColour & 0x0F];
         
-        for (int i=startPos; i <= endPos; i++) {
-            pixelData.putPixel(i, colour);
-        }
+        pixelData.fillPixels(startPos, (endPos - startPos) + 1, colour);
     }
 
     /**
@@ -197,12 +201,9 @@ public class TextGraphics {
         int startY = (top * 8);
         int startX = (left * 8);
         int startScreenPos = ((startY * 320) + startX);
-        int screenYAdd = 320 - width;
 
-        for (int y = 0, screenPos = startScreenPos; y < height; y++, screenPos += screenYAdd) {
-            for (int x = 0; x < width; x++, screenPos++) {
-                pixelData.putPixel(screenPos, backgroundRGBA8888);
-            }
+        for (int y = 0, screenPos = startScreenPos; y < height; y++, screenPos += 320) {
+            pixelData.fillPixels(screenPos, width, backgroundRGBA8888);
         }
     }
 
@@ -233,7 +234,7 @@ public class TextGraphics {
         clearLines(0, 24, 0);
 
         // Copy VisualPixels to game screen.
-        pixelData.pixelCopy(state.visualPixels, (8 * state.pictureRow) * 320, state.visualPixels.length);
+        pixelData.stretchPixels(state.visualPixels, 0, 160, (8 * state.pictureRow) * 320, 160, 168);
         
         updateStatusLine();
         updateInputLine();
@@ -271,23 +272,8 @@ public class TextGraphics {
      * @param halfTone If true then character are only half drawn.
      */
     public void drawChar(PixelData pixelData, byte charNum, int x, int y, int foregroundColour, int backgroundColour, boolean halfTone) {
-        for (int byteNum = 0; byteNum < 8; byteNum++) {
-            int fontByte = (IBM_BIOS_FONT[(((int)charNum & 0xFF) << 3) + byteNum] & 0xFF);
-            boolean halfToneState = ((byteNum % 2) == 0);
-
-            for (int bytePos = 7; bytePos >= 0; bytePos--) {
-                if (!halfTone || halfToneState) {
-                    if ((fontByte & (1 << bytePos)) != 0) {
-                        pixelData.putPixel(((y + byteNum) * 320) + x + (7 - bytePos), EgaPalette.colours[foregroundColour]);
-                    }
-                    else {
-                        pixelData.putPixel(((y + byteNum) * 320) + x + (7 - bytePos), EgaPalette.colours[backgroundColour]);
-                    }
-                }
-
-                halfToneState = !halfToneState;
-            }
-        }
+        pixelData.drawGlyph(IBM_BIOS_FONT, ((int)charNum & 0xFF) << 3, (y * 320) + x, 
+                EgaPalette.colours[foregroundColour], EgaPalette.colours[backgroundColour], halfTone);
     }
 
     /**
@@ -298,7 +284,7 @@ public class TextGraphics {
      * @param x The X position of the text.
      * @param y The Y position of the text.
      */
-    public void drawString(PixelData pixelData, String text, int x, int y) {
+    public void drawString(PixelData pixelData, CharSequence text, int x, int y) {
         drawString(pixelData, text, x, y, UNASSIGNED, UNASSIGNED, false);
     }
 
@@ -327,7 +313,7 @@ public class TextGraphics {
      * @param backgroundColour Optional background colour. Defaults to currently active background colour if not specified.
      * @param halfTone If true then character are only half drawn.
      */
-    public void drawString(PixelData pixelData, String text, int x, int y, int foregroundColour, int backgroundColour, boolean halfTone) {
+    public void drawString(PixelData pixelData, CharSequence text, int x, int y, int foregroundColour, int backgroundColour, boolean halfTone) {
         // This method is used as both a general text drawing method, for things like the menu 
         // and inventory, and also for the print and display commands. The print and display
         // commands will operate using the currently set text attribute, foreground and background
@@ -358,12 +344,36 @@ public class TextGraphics {
             }
         }
 
-        // GWT backend doesn't support IBM437/CP437.
-        byte[] textBytes = StringUtils.getBytesFromString(text);
-
-        for (int charPos = 0; charPos < textBytes.length; charPos++) {
-            drawChar(pixelData, textBytes[charPos], x + (charPos * 8), y, foregroundColour, backgroundColour, halfTone);
+        if (isAscii(text)) {
+            // ASCII characters are the same in every character set, so can be drawn as is.
+            for (int charPos = 0; charPos < text.length(); charPos++) {
+                drawChar(pixelData, (byte)text.charAt(charPos), x + (charPos * 8), y, foregroundColour, backgroundColour, halfTone);
+            }
+        }
+        else {
+            // GWT backend doesn't support IBM437/CP437.
+            byte[] textBytes = StringUtils.getBytesFromString(text.toString());
+    
+            for (int charPos = 0; charPos < textBytes.length; charPos++) {
+                drawChar(pixelData, textBytes[charPos], x + (charPos * 8), y, foregroundColour, backgroundColour, halfTone);
+            }
+        }
+    }
+    
+    /**
+     * Tests if the given text contains only ASCII characters.
+     * 
+     * @param text The text to test.
+     * 
+     * @return true if every character is ASCII; otherwise false.
+     */
+    private boolean isAscii(CharSequence text) {
+        for (int charPos = 0; charPos < text.length(); charPos++) {
+            if (text.charAt(charPos) >= 0x80) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
@@ -452,17 +462,26 @@ public class TextGraphics {
     public void updateInputLine(boolean clearWhenNotEnabled) {
         if (state.graphicsMode) {
             if (state.acceptInput) {
-                // Input line has the prompt string at the start, then the user input.
-                StringBuilder inputLine = new StringBuilder();
-                if (state.strings[0] != null) {
-                    inputLine.append(expandReferences(state.strings[0]));
+                // Input line has the prompt string at the start, then the user input. This is redrawn
+                // on every cycle, so it is built without creating any garbage where possible.
+                inputLine.setLength(0);
+                String prompt = state.strings[0];
+                if (prompt != null) {
+                    // Only prompts with references or escapes need to be expanded.
+                    if ((prompt.indexOf('%') >= 0) || (prompt.indexOf(escapeChar) >= 0)) {
+                        prompt = expandReferences(prompt);
+                    }
+                    inputLine.append(prompt);
                 }
-                inputLine.append(state.currentInput.toString());
+                inputLine.append(state.currentInput);
                 if (state.cursorCharacter > 0) {
                     // Cursor character is optional. There isn't one at the start of the game.
                     inputLine.append(state.cursorCharacter);
                 }
-                drawString(this.pixelData, padRightSpaces(inputLine.toString(), Defines.MAXINPUT), 0, state.inputLineRow * 8);
+                while (inputLine.length() < Defines.MAXINPUT) {
+                    inputLine.append(' ');
+                }
+                drawString(this.pixelData, inputLine, 0, state.inputLineRow * 8);
             }
             else if (clearWhenNotEnabled) {
                 // If not accepting input, clear the prompt and text input.
@@ -633,12 +652,8 @@ public class TextGraphics {
             timeOut = state.getTotalTicks() + state.getVar(Defines.PRINT_TIMEOUT) * 30;
 
             while ((state.getTotalTicks() < timeOut) && (userInput.checkAcceptAbort() == -1))  {
-                try {
-                    Thread.sleep(1);
-                } catch (InterruptedException e) {
-                    // Interrupt indicates AGILE is stopping, so throw QuitAction.
-                    QuitAction.exit();
-                }
+                // Wait until a key is pressed, or until roughly when the timeout is reached.
+                userInput.awaitKeyPress((int)(((timeOut - state.getTotalTicks()) * 1000) / 60) + 1);
             }
 
             retVal = true;
@@ -995,30 +1010,27 @@ public class TextGraphics {
             boolean storeBackPixels = (textWindow.backPixels == null);
             if (storeBackPixels) textWindow.backPixels = new int[textWindow.width() * textWindow.height()];
 
-            // Draw a box in the background colour and store the pixels that were behind it.
-            int backPixelsPos = 0;
-            for (int y = 0, screenPos = startScreenPos; y < textWindow.height(); y++, screenPos += screenYAdd) {
-                for (int x = 0; x < textWindow.width(); x++, screenPos++) {
-                    // Store the pixel currently at this position (if applicable).
-                    if (storeBackPixels) textWindow.backPixels[backPixelsPos++] = pixelData.getPixel(screenPos);
-
-                    // Overwrite the pixel with the window's background colour.
-                    pixelData.putPixel(screenPos, backgroundRGBA8888);
+            // Store the pixels that are behind the box (if applicable).
+            if (storeBackPixels) {
+                int backPixelsPos = 0;
+                for (int y = 0, screenPos = startScreenPos; y < textWindow.height(); y++, screenPos += screenYAdd) {
+                    for (int x = 0; x < textWindow.width(); x++, screenPos++) {
+                        textWindow.backPixels[backPixelsPos++] = pixelData.getPixel(screenPos);
+                    }
                 }
             }
 
-            // Draw a line just in a bit from the edge of the box in the border colour.
-            for (int x = 0, screenPos = (startScreenPos + 320 + 2); x < (textWindow.width() - 4); x++, screenPos++) {
-                pixelData.putPixel(screenPos, borderRGBA8888);
-            }
-            for (int x = 0, screenPos = (startScreenPos + (320 * (textWindow.height() - 2) + 2)); x < (textWindow.width() - 4); x++, screenPos++) {
-                pixelData.putPixel(screenPos, borderRGBA8888);
+            // Draw a box in the background colour.
+            for (int y = 0, screenPos = startScreenPos; y < textWindow.height(); y++, screenPos += 320) {
+                pixelData.fillPixels(screenPos, textWindow.width(), backgroundRGBA8888);
             }
+
+            // Draw a line just in a bit from the edge of the box in the border colour.
+            pixelData.fillPixels(startScreenPos + 320 + 2, textWindow.width() - 4, borderRGBA8888);
+            pixelData.fillPixels(startScreenPos + (320 * (textWindow.height() - 2) + 2), textWindow.width() - 4, borderRGBA8888);
             for (int y = 1, screenPos = (startScreenPos + 640 + 2); y < (textWindow.height() - 2); y++, screenPos += 320) {
-                pixelData.putPixel(screenPos, borderRGBA8888);
-                pixelData.putPixel(screenPos + 1, borderRGBA8888);
-                pixelData.putPixel(screenPos + (textWindow.width() - 6), borderRGBA8888);
-                pixelData.putPixel(screenPos + (textWindow.width() - 5), borderRGBA8888);
+                pixelData.fillPixels(screenPos, 2, borderRGBA8888);
+                pixelData.fillPixels(screenPos + (textWindow.width() - 6), 2, borderRGBA8888);
             }
 
             // Draw the text lines (if applicable).
@@ -1062,15 +1074,9 @@ public class TextGraphics {
         if (this.openWindow != null) {
             if (restoreBackPixels) {
                 int startScreenPos = (openWindow.y() * 320) + openWindow.x();
-                int screenYAdd = (320 - openWindow.width());
 
-                // Copy each of the stored background pixels back in to their original places.
-                int backPixelsPos = 0;
-                for (int y = 0, screenPos = startScreenPos; y < openWindow.height(); y++, screenPos += screenYAdd) {
-                    for (int x = 0; x < openWindow.width(); x++, screenPos++) {
-                        pixelData.putPixel(screenPos, openWindow.backPixels[backPixelsPos++]);
-                    }
-                }
+                // Copy the stored background pixels back in to their original places.
+                pixelData.copyPixels(openWindow.backPixels, 0, openWindow.width(), startScreenPos, openWindow.width(), openWindow.height());
             }
 
             // Clear the currently open window variable.
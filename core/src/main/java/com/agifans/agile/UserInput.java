@@ -7,6 +7,7 @@ import java.util.Map;
 
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.utils.TimeUtils;
 
 /**
  * Handles the input of keyboard events, mapping them to a form that the AGILE
@@ -101,10 +102,55 @@ public abstract class UserInput extends InputAdapter {
     
     private GameScreen gameScreen;
     
+    /**
+     * If set, then the key events are recorded to this InputRecording.
+     */
+    private InputRecording inputRecording;
+    
+    /**
+     * If set, then the current frame is published to this PixelData before waiting for 
+     * a key press.
+     */
+    private PixelData pixelData;
+    
+    /**
+     * If set, then the time spent waiting for key presses and pausing is recorded to this
+     * CommandProfiler, so that it can be excluded from the command times.
+     */
+    private CommandProfiler profiler;
+    
     public void setGameScreen(GameScreen gameScreen) {
         this.gameScreen = gameScreen;
     }
     
+    /**
+     * Sets the InputRecording to record key events to, or null to stop recording.
+     * 
+     * @param inputRecording The InputRecording to record key events to.
+     */
+    public void setInputRecording(InputRecording inputRecording) {
+        this.inputRecording = inputRecording;
+    }
+    
+    /**
+     * Sets the PixelData to publish the current frame of before waiting for a key press.
+     * This is called by the Interpreter's constructor, so every runner gets it.
+     * 
+     * @param pixelData The PixelData to publish the frame of.
+     */
+    public void setPixelData(PixelData pixelData) {
+        this.pixelData = pixelData;
+    }
+    
+    /**
+     * Sets the CommandProfiler to record the time spent blocked to, or null to stop recording.
+     * 
+     * @param profiler The CommandProfiler to record the time spent blocked to.
+     */
+    public void setCommandProfiler(CommandProfiler profiler) {
+        this.profiler = profiler;
+    }
+    
     /**
      * Handles the key down event.
      * 
@@ -113,6 +159,10 @@ public abstract class UserInput extends InputAdapter {
      * @return whether the input was processed 
      */
     public boolean keyDown(int keycode) {
+        if (inputRecording != null) {
+            inputRecording.recordKeyEvent(InputRecording.KEY_DOWN, keycode);
+        }
+        
         // For now, we're interpreting back as request to Quit.
         if (keycode == Keys.BACK) {
             keyPressQueueAdd(ALT_MODIFIER | Keys.Z);
@@ -122,7 +172,7 @@ public abstract class UserInput extends InputAdapter {
         // AGILE interpreter ignores some keys completely, e.g. F11.
         if (keycode == Keys.F11) {
             return false;
-        } else if (keycode == Keys.F12) {
+        } else if ((keycode == Keys.F12) && (gameScreen != null)) {
             gameScreen.saveScreenshot();
         }
 
@@ -165,6 +215,10 @@ public abstract class UserInput extends InputAdapter {
      * Handles the key up event.
      */
     public boolean keyUp(int keycode) {
+        if (inputRecording != null) {
+            inputRecording.recordKeyEvent(InputRecording.KEY_UP, keycode);
+        }
+        
         setKey((keycode & 0xFF), false);
         
         // Update modifiers for ALT/CONTROL
@@ -187,6 +241,9 @@ public abstract class UserInput extends InputAdapter {
      */
     public boolean keyTyped(char character) {
         // NOTE: The keyTyped method isn't invoked when ALT and CTRL are used.
+        if (inputRecording != null) {
+            inputRecording.recordKeyEvent(InputRecording.KEY_TYPED, character);
+        }
 
         // We handle ENTER ourselves in keyDown, via the HashMap in Character class.
         if ((character != 0x0A) && (character != 0x0D)) {
@@ -205,16 +262,11 @@ public abstract class UserInput extends InputAdapter {
         int action;
 
         // Ignore anything currently on the key press queue.
-        while (keyPressQueuePoll() != null) ;
+        while (keyPressQueuePoll() != 0) ;
 
         // Now wait for the the next key.
         while ((action = checkAcceptAbort()) == -1) {
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                // Interrupt indicates AGILE is stopping, so throw QuitAction.
-                QuitAction.exit();
-            }
+            awaitKeyPress(0);
         }
 
         return action;
@@ -242,22 +294,70 @@ public abstract class UserInput extends InputAdapter {
 
         if (clearQueue) {
             // Ignore anything currently on the key press queue.
-            while (keyPressQueuePoll() != null) ;
+            while (keyPressQueuePoll() != 0) ;
         }
 
         // Now wait for the the next key.
         while ((key = getKey()) == 0) {
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                // Interrupt indicates AGILE is stopping, so throw QuitAction.
-                QuitAction.exit();
-            }
+            awaitKeyPress(0);
         }
         
         return key;
     }
 
+    /**
+     * Blocks until there is a key press on the key press queue, or until the given timeout
+     * expires, whichever comes first. This may return early, so callers should check the 
+     * queue again and call this method again if there is still nothing of interest.
+     * 
+     * @param timeoutMillis The maximum number of milliseconds to wait, or 0 to wait until there is a key press.
+     */
+    public void awaitKeyPress(int timeoutMillis) {
+        // Whatever has been drawn so far is what the user is responding to.
+        if (pixelData != null) {
+            pixelData.publishFrame();
+        }
+        long startTime = (profiler != null? TimeUtils.nanoTime() : 0);
+        try {
+            waitForKeyPress(timeoutMillis);
+        } catch (InterruptedException e) {
+            // Interrupt indicates AGILE is stopping, so throw QuitAction.
+            QuitAction.exit();
+        }
+        if (profiler != null) {
+            profiler.recordBlocked(TimeUtils.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Pauses the Interpreter for the given number of ticks, i.e. 1/60ths of a second, for
+     * example to simulate a slow room change.
+     * 
+     * @param ticks The number of ticks to pause for.
+     */
+    public void pause(int ticks) {
+        long startTime = (profiler != null? TimeUtils.nanoTime() : 0);
+        waitForTicks(ticks);
+        if (profiler != null) {
+            profiler.recordBlocked(TimeUtils.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Blocks the calling thread for the given number of ticks. By default this sleeps for
+     * the equivalent real time. Runners that drive the ticks from a virtual clock override
+     * this to let the ticks pass on that clock instead.
+     * 
+     * @param ticks The number of ticks to wait for.
+     */
+    protected void waitForTicks(int ticks) {
+        try {
+            Thread.sleep((ticks * 1000) / 60);
+        } catch (InterruptedException e) {
+            // Ignore.
+        }
+    }
+
     /**
      * Check if either ACCEPT or ABORT has been selected. Return the value if so, -1 otherwise.
      * 
@@ -283,14 +383,32 @@ public abstract class UserInput extends InputAdapter {
      * @return Either the key from the queue, or 0 if none available.
      */
     public int getKey() {
-        return (!keyPressQueueIsEmpty()? keyPressQueuePoll() : 0);
+        return keyPressQueuePoll();
     }
 
     protected abstract boolean keyPressQueueIsEmpty();
     
-    protected abstract Integer keyPressQueuePoll();
+    /**
+     * Removes and returns the key at the head of the key press queue. Returns a primitive
+     * int, rather than an Integer, so that the Interpreter can check for key presses on 
+     * every cycle without creating any garbage.
+     * 
+     * @return The key at the head of the queue, or 0 if the queue is empty.
+     */
+    protected abstract int keyPressQueuePoll();
+    
+    protected abstract boolean keyPressQueueAdd(int key);
     
-    protected abstract boolean keyPressQueueAdd(Integer key);
+    /**
+     * Blocks the calling thread until the key press queue is not empty, or until the 
+     * given timeout expires. Implementations must wake the waiting thread when a key
+     * press is added to the queue.
+     * 
+     * @param timeoutMillis The maximum number of milliseconds to wait, or 0 to wait until there is a key press.
+     * 
+     * @throws InterruptedException If the waiting thread was interrupted, i.e. AGILE is stopping.
+     */
+    protected abstract void waitForKeyPress(int timeoutMillis) throws InterruptedException;
     
     public abstract boolean keys(int keycode);
     
@@ -47,11 +47,78 @@ public class Game {
     public int[][] palettes;
     
     /**
-     * Constructor for Game.
+     * The default estimated number of bytes that a decoded resource takes up for each byte
+     * of its raw resource data, indexed by resource type. VIEW cels are expanded to a whole
+     * int per pixel, SOUND notes each become a few objects, and PICTUREs become a short op 
+     * stream. LOGICs are not counted, as they're never evicted.
+     */
+    private static final int[] DEFAULT_RESOURCE_WEIGHTS = { 0, 4, 16, 32 };
+    
+    /**
+     * The estimated number of bytes that a decoded resource takes up for each byte of its
+     * raw resource data, indexed by resource type. Starts off as the default weights.
+     */
+    private int[] resourceWeights = DEFAULT_RESOURCE_WEIGHTS.clone();
+    
+    /**
+     * For each resource type, and then resource number, whether an attempt has been made
+     * to decode the resource. A null entry in the resource array that has been attempted
+     * is a resource that doesn't exist.
+     */
+    private boolean[][] decoded;
+    
+    /**
+     * For each resource type, and then resource number, the number of bytes of raw resource
+     * data for the decoded resource, or 0 if it isn't decoded.
+     */
+    private int[][] resourceSizes;
+    
+    /**
+     * For each resource type, and then resource number, the value of useCount when the
+     * resource was last asked for.
+     */
+    private long[][] lastUsed;
+    
+    /**
+     * Counts the number of times that a PICTURE, VIEW or SOUND has been asked for.
+     */
+    private long useCount;
+    
+    /**
+     * The estimated total number of bytes taken up by the decoded resources.
+     */
+    private long decodedBytes;
+    
+    /**
+     * The number of bytes that the decoded resources should be kept within, or 0 for no limit.
+     */
+    private long memoryBudget;
+    
+    /**
+     * The resource number that the next call to prefetchResource will start looking from.
+     */
+    private int prefetchNum;
+    
+    /**
+     * Constructor for Game that decodes all of the game's resources up front.
      * 
      * @param gameFilesMap Map containing the data files for the AGI game.
      */
     public Game(Map<String, byte[]> gameFilesMap) {
+        this(gameFilesMap, false);
+    }
+    
+    /**
+     * Constructor for Game. In lazy mode, the PICTURE, VIEW and SOUND resources are only
+     * decoded when they are first asked for, e.g. by load.pic, load.view and load.sound, 
+     * which makes the game start faster and keeps only the resources that the game has
+     * used in memory. The LOGIC resources are always decoded up front, as they're needed 
+     * to detect the game ID and to patch the game. 
+     * 
+     * @param gameFilesMap Map containing the data files for the AGI game.
+     * @param lazy true to decode PICTURE, VIEW and SOUND resources on demand; false to decode them all now.
+     */
+    public Game(Map<String, byte[]> gameFilesMap, boolean lazy) {
         try {
             this.gameFilesMap = gameFilesMap;
             
@@ -65,9 +132,15 @@ public class Game {
             objects = new Objects(resourceCache.getObjects());
             words = new Words(resourceCache.getWords());
             logics = loadLogics();
-            pictures = loadPictures();
-            views = loadViews();
-            sounds = loadSounds();
+            pictures = new Picture[256];
+            views = new View[256];
+            sounds = new Sound[256];
+            decoded = new boolean[4][256];
+            resourceSizes = new int[4][256];
+            lastUsed = new long[4][256];
+            if (!lazy) {
+                while (prefetchResource());
+            }
             palettes = resourceCache.getPalettes();
             
         } catch (ResourceException | IOException e) {
@@ -93,56 +166,247 @@ public class Game {
         return logics;
     }
     
-    private Picture[] loadPictures() {
-        Picture[] pictures = new Picture[256];
-        for (short i=0; i<256; i++) {
-            try {
-                Picture picture = new Picture(resourceCache.getPicture(i));
-                picture.index = i;
-                pictures[i] = picture;
-            } catch (CorruptedPictureException cpe) {
-                // This probably means that it is an AGI256 picture, so let's load
-                // the raw data instead, so that the AGILE interpreter can use it
-                // directly.
-                try {
-                    Picture picture = new Picture(resourceCache.getResourceProvider().open(ResourceProvider.TYPE_PICTURE, i));
-                    picture.index = i;
-                    pictures[i] = picture;
-                } catch (Exception e) {
-                    // Ignore. Perhaps it really is a PICTURE we can't deal with.
-                }
-            } catch (Exception e) {
-                // Ignore. The PICTURE doesn't exist.
+    /**
+     * Sets the number of bytes that the decoded PICTURE, VIEW and SOUND resources should 
+     * be kept within. When a newly decoded resource takes the total over the budget, the 
+     * least recently used resources that are not currently loaded by the game are evicted, 
+     * and are decoded again if they're needed later on. Loaded resources are never evicted,
+     * so the budget can be exceeded if the current room loads a lot.
+     * 
+     * @param memoryBudget The memory budget in bytes, or 0 for no limit.
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        evictResources(-1, 0);
+    }
+    
+    /**
+     * Sets the estimated number of bytes that a decoded resource of the given type takes up
+     * for each byte of its raw resource data. This is what the resource counts towards the
+     * memory budget. A weight of 0 means that resources of that type are not counted, and
+     * are therefore never evicted.
+     * 
+     * @param resType The type of resource, i.e. ResourceProvider.TYPE_PICTURE, TYPE_SOUND or TYPE_VIEW.
+     * @param weight The number of decoded bytes for each byte of raw resource data.
+     */
+    public void setResourceWeight(int resType, int weight) {
+        if ((resType < ResourceProvider.TYPE_PICTURE) || (resType > ResourceProvider.TYPE_VIEW) || (weight < 0)) {
+            throw new IllegalArgumentException("Invalid resource weight " + weight + " for type " + resType);
+        }
+        // Resources that are already decoded are counted again with the new weight.
+        long rawBytes = 0;
+        for (int resNum = 0; resNum < 256; resNum++) {
+            rawBytes += resourceSizes[resType][resNum];
+        }
+        decodedBytes += rawBytes * (weight - resourceWeights[resType]);
+        resourceWeights[resType] = weight;
+        evictResources(-1, 0);
+    }
+    
+    /**
+     * Gets the given PICTURE, decoding it if it hasn't been decoded, or has been evicted.
+     * 
+     * @param pictureNum The number of the PICTURE to get.
+     * 
+     * @return The PICTURE, or null if it doesn't exist.
+     */
+    public Picture getPicture(int pictureNum) {
+        Picture picture = pictures[pictureNum];
+        if ((picture == null) && !decoded[ResourceProvider.TYPE_PICTURE][pictureNum]) {
+            picture = pictures[pictureNum] = loadPicture((short)pictureNum);
+            addDecodedResource(ResourceProvider.TYPE_PICTURE, pictureNum, picture);
+        }
+        lastUsed[ResourceProvider.TYPE_PICTURE][pictureNum] = ++useCount;
+        return picture;
+    }
+    
+    /**
+     * Gets the given VIEW, decoding it if it hasn't been decoded, or has been evicted.
+     * 
+     * @param viewNum The number of the VIEW to get.
+     * 
+     * @return The VIEW, or null if it doesn't exist.
+     */
+    public View getView(int viewNum) {
+        View view = views[viewNum];
+        if ((view == null) && !decoded[ResourceProvider.TYPE_VIEW][viewNum]) {
+            view = views[viewNum] = loadView((short)viewNum);
+            addDecodedResource(ResourceProvider.TYPE_VIEW, viewNum, view);
+        }
+        lastUsed[ResourceProvider.TYPE_VIEW][viewNum] = ++useCount;
+        return view;
+    }
+    
+    /**
+     * Gets the given SOUND, decoding it if it hasn't been decoded, or has been evicted.
+     * 
+     * @param soundNum The number of the SOUND to get.
+     * 
+     * @return The SOUND, or null if it doesn't exist.
+     */
+    public Sound getSound(int soundNum) {
+        Sound sound = sounds[soundNum];
+        if ((sound == null) && !decoded[ResourceProvider.TYPE_SOUND][soundNum]) {
+            sound = sounds[soundNum] = loadSound((short)soundNum);
+            addDecodedResource(ResourceProvider.TYPE_SOUND, soundNum, sound);
+        }
+        lastUsed[ResourceProvider.TYPE_SOUND][soundNum] = ++useCount;
+        return sound;
+    }
+    
+    /**
+     * Decodes the next PICTURE, VIEW or SOUND that hasn't been decoded yet, if there is 
+     * one. This allows a lazy mode Game to decode its resources a little at a time while
+     * the interpreter is otherwise idle, so that they're ready before they're needed. 
+     * Nothing more is decoded once the memory budget has been used up.
+     * 
+     * @return true if there may be more resources to decode; false if all have been decoded.
+     */
+    public boolean prefetchResource() {
+        if ((memoryBudget > 0) && (decodedBytes >= memoryBudget)) {
+            return false;
+        }
+        for (; prefetchNum < 256; prefetchNum++) {
+            if (!decoded[ResourceProvider.TYPE_PICTURE][prefetchNum]) {
+                getPicture(prefetchNum);
+                return true;
+            }
+            if (!decoded[ResourceProvider.TYPE_VIEW][prefetchNum]) {
+                getView(prefetchNum);
+                return true;
+            }
+            if (!decoded[ResourceProvider.TYPE_SOUND][prefetchNum]) {
+                getSound(prefetchNum);
+                return true;
             }
         }
-        return pictures;
+        return false;
     }
     
-    private View[] loadViews() {
-        View[] views = new View[256];
-        for (short i=0; i<256; i++) {
+    /**
+     * Records that the given resource has been decoded, and then evicts other resources 
+     * if that has taken the decoded resources over the memory budget.
+     * 
+     * @param resType The type of the resource.
+     * @param resNum The number of the resource.
+     * @param resource The decoded resource, or null if it doesn't exist.
+     */
+    private void addDecodedResource(byte resType, int resNum, Resource resource) {
+        decoded[resType][resNum] = true;
+        if (resource != null) {
+            int size = 0;
             try {
-                View view = ((AgileViewWrapper)resourceCache.getView(i)).getAgileView();
-                view.index = i;
-                views[i] = view;
-            } catch (Exception e) {
-                // Ignore. The VIEW doesn't exist.
+                size = resourceCache.getResourceProvider().getSize(resType, (short)resNum);
+            } catch (ResourceException | IOException e) {
+                // Ignore. The resource can't be evicted if its size isn't known.
             }
+            resourceSizes[resType][resNum] = size;
+            decodedBytes += (long)size * resourceWeights[resType];
+            evictResources(resType, resNum);
         }
-        return views;
     }
     
-    private Sound[] loadSounds() {
-        Sound[] sounds = new Sound[256];
-        for (short i=0; i<256; i++) {
+    /**
+     * Evicts the least recently used resources that are not currently loaded, until the
+     * decoded resources are within the memory budget, or there are none left to evict.
+     * 
+     * @param keepType The type of a resource that must not be evicted, or -1 if there isn't one.
+     * @param keepNum The number of the resource that must not be evicted.
+     */
+    private void evictResources(int keepType, int keepNum) {
+        while ((memoryBudget > 0) && (decodedBytes > memoryBudget)) {
+            int evictType = -1;
+            int evictNum = 0;
+            long oldestUse = Long.MAX_VALUE;
+            
+            for (int resType = ResourceProvider.TYPE_PICTURE; resType <= ResourceProvider.TYPE_VIEW; resType++) {
+                for (int resNum = 0; resNum < 256; resNum++) {
+                    if ((resourceSizes[resType][resNum] > 0) && (resourceWeights[resType] > 0) && (lastUsed[resType][resNum] < oldestUse) &&
+                            ((resType != keepType) || (resNum != keepNum)) && !isLoaded(resType, resNum)) {
+                        evictType = resType;
+                        evictNum = resNum;
+                        oldestUse = lastUsed[resType][resNum];
+                    }
+                }
+            }
+            
+            if (evictType == -1) {
+                // Everything else is loaded, so the budget will have to be exceeded.
+                break;
+            }
+            
+            switch (evictType) {
+                case ResourceProvider.TYPE_PICTURE:
+                    pictures[evictNum] = null;
+                    break;
+                case ResourceProvider.TYPE_SOUND:
+                    sounds[evictNum] = null;
+                    break;
+                case ResourceProvider.TYPE_VIEW:
+                    views[evictNum] = null;
+                    break;
+            }
+            resourceCache.discard((byte)evictType, (short)evictNum);
+            decoded[evictType][evictNum] = false;
+            decodedBytes -= (long)resourceSizes[evictType][evictNum] * resourceWeights[evictType];
+            resourceSizes[evictType][evictNum] = 0;
+        }
+    }
+    
+    private boolean isLoaded(int resType, int resNum) {
+        switch (resType) {
+            case ResourceProvider.TYPE_PICTURE:
+                return pictures[resNum].isLoaded;
+            case ResourceProvider.TYPE_SOUND:
+                return sounds[resNum].isLoaded;
+            case ResourceProvider.TYPE_VIEW:
+                return views[resNum].isLoaded;
+            default:
+                return true;
+        }
+    }
+    
+    private Picture loadPicture(short i) {
+        try {
+            Picture picture = new Picture(resourceCache.getPicture(i));
+            picture.index = i;
+            return picture;
+        } catch (CorruptedPictureException cpe) {
+            // This probably means that it is an AGI256 picture, so let's load
+            // the raw data instead, so that the AGILE interpreter can use it
+            // directly.
             try {
-                Sound sound = ((AgileSoundWrapper)resourceCache.getSound(i)).getAgileSound();
-                sound.index = i;
-                sounds[i] = sound;
+                Picture picture = new Picture(resourceCache.getResourceProvider().open(ResourceProvider.TYPE_PICTURE, i));
+                picture.index = i;
+                return picture;
             } catch (Exception e) {
-                // Ignore. The SOUND doesn't exist.
+                // Ignore. Perhaps it really is a PICTURE we can't deal with.
             }
+        } catch (Exception e) {
+            // Ignore. The PICTURE doesn't exist.
+        }
+        return null;
+    }
+    
+    private View loadView(short i) {
+        try {
+            View view = ((AgileViewWrapper)resourceCache.getView(i)).getAgileView();
+            view.index = i;
+            return view;
+        } catch (Exception e) {
+            // Ignore. The VIEW doesn't exist.
+            return null;
+        }
+    }
+    
+    private Sound loadSound(short i) {
+        try {
+            Sound sound = ((AgileSoundWrapper)resourceCache.getSound(i)).getAgileSound();
+            sound.index = i;
+            return sound;
+        } catch (Exception e) {
+            // Ignore. The SOUND doesn't exist.
+            return null;
         }
-        return sounds;
     }
-}
\ No newline at end of file
+}
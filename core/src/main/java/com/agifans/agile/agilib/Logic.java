@@ -3,6 +3,7 @@ package com.agifans.agile.agilib;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +29,21 @@ public class Logic extends Resource {
     */
     public Map<Integer, Integer> addressToActionIndex;
 
+    /**
+     * The compiled form of the Actions, as a flat stream of ints. Each Action is encoded as
+     * its opcode followed by its operand values. Jumps hold the pre-resolved index of the
+     * destination Action, and Conditions are encoded as their opcode, the offset of the 
+     * next Condition, then their operands. This is what the interpreter executes, so that
+     * it doesn't need to walk the Action and Operand objects on every logic scan.
+     */
+    public int[] code;
+
+    /**
+     * Lookup from the index of an Action within the Actions List to the offset of that
+     * Action's opcode within the compiled code.
+     */
+    public int[] actionOffsets;
+
     /**
      * If this Logic includes a set.game.id action command, then this field will contain
      * the value of the associated message number. The main purpose of this field is to 
@@ -72,6 +88,135 @@ public class Logic extends Resource {
 
         // Read the messages.
         readMessages(rawData);
+
+        // Resolve the jump destinations, then compile the Actions into the form that the
+        // interpreter executes.
+        link();
+        compile();
+    }
+
+    /**
+     * Resolves the action number of every Action, and the destination Action index of 
+     * every JumpAction, storing them directly on the Actions so that they don't need to 
+     * be looked up in the addressToActionIndex Map. This needs to be invoked again if the
+     * Actions are modified after decoding, e.g. by a patch.
+     */
+    public void link() {
+        for (int actionNum = 0; actionNum < actions.size(); actionNum++) {
+            actions.get(actionNum).actionNumber = actionNum;
+        }
+        
+        for (Action action : actions) {
+            if (action instanceof JumpAction) {
+                JumpAction jumpAction = (JumpAction)action;
+                jumpAction.destinationActionIndex = resolveActionIndex(jumpAction.getDestinationAddress());
+            }
+        }
+    }
+
+    /**
+     * Compiles the Actions List into the flat code array that the interpreter executes. This
+     * needs to be invoked again, after link(), if the Actions are modified after decoding, 
+     * e.g. by a patch.
+     */
+    public void compile() {
+        CodeBuilder builder = new CodeBuilder(actions.size() * 4);
+        int[] offsets = new int[actions.size()];
+
+        for (int actionNum = 0; actionNum < actions.size(); actionNum++) {
+            Action action = actions.get(actionNum);
+            int opcode = action.operation.opcode;
+
+            offsets[actionNum] = builder.add(opcode);
+
+            if (opcode == 0xFF) {         // IF
+                builder.add(((IfAction)action).getDestinationActionIndex());
+                int endOfConditions = builder.add(0);
+                for (Condition condition : action.operands.get(0).asConditions()) {
+                    compileCondition(builder, condition);
+                }
+                builder.set(endOfConditions, builder.length);
+            }
+            else if (opcode == 0xFE) {    // GOTO
+                builder.add(((GotoAction)action).getDestinationActionIndex());
+            }
+            else if ((opcode == 134) && action.operands.isEmpty()) {
+                // The quit command has no parameter in early AGI versions, in which case it
+                // behaves as if the parameter was 1, i.e. quit without asking.
+                builder.add(1);
+            }
+            else {
+                for (Operand operand : action.operands) {
+                    builder.add(operand.asByte());
+                }
+            }
+        }
+
+        this.code = builder.toArray();
+        this.actionOffsets = offsets;
+    }
+
+    /**
+     * Compiles the given Condition into the code being built. Every Condition starts with
+     * its opcode and the offset of the code immediately after it, so that the interpreter
+     * can skip over it, or step to the next one in an IF or OR, without decoding it.
+     * 
+     * @param builder The CodeBuilder to add the Condition's code to.
+     * @param condition The Condition to compile.
+     */
+    private void compileCondition(CodeBuilder builder, Condition condition) {
+        if (condition == null) {
+            // Malformed NOT with nothing following it. Opcode 0 always evaluates to false.
+            builder.add(0);
+            builder.add(builder.length + 1);
+            return;
+        }
+
+        int opcode = condition.operation.opcode;
+        builder.add(opcode);
+        int nextCondition = builder.add(0);
+
+        switch (opcode) {
+            case 0xFC:  // OR
+                for (Condition orCondition : condition.operands.get(0).asConditions()) {
+                    compileCondition(builder, orCondition);
+                }
+                break;
+
+            case 0xFD:  // NOT
+                compileCondition(builder, condition.operands.get(0).asCondition());
+                break;
+
+            case 0x0E:  // SAID
+                List<Integer> wordNumbers = condition.operands.get(0).asInts();
+                builder.add(wordNumbers.size());
+                for (int wordNumber : wordNumbers) {
+                    builder.add(wordNumber);
+                }
+                break;
+
+            default:
+                for (Operand operand : condition.operands) {
+                    builder.add(operand.asByte());
+                }
+                break;
+        }
+
+        builder.set(nextCondition, builder.length);
+    }
+
+    /**
+     * Resolves the given address to the index of the Action at that address. If there 
+     * isn't an Action at that address, then -1 is returned, which the interpreter treats
+     * in the same way as reaching the end of the Logic.
+     * 
+     * @param address The address to resolve.
+     * 
+     * @return The index of the Action at the given address, or -1 if there isn't one.
+     */
+    private int resolveActionIndex(int address) {
+        Integer actionIndex = addressToActionIndex.get(address);
+        return (actionIndex != null? actionIndex : -1);
     }
     
     /**
@@ -295,6 +440,39 @@ public class Logic extends Resource {
         }
     }
         
+    /**
+     * Simple growable int array used while compiling the Actions.
+     */
+    private static class CodeBuilder {
+        
+        private int[] data;
+        
+        private int length;
+        
+        CodeBuilder(int initialCapacity) {
+            this.data = new int[Math.max(initialCapacity, 16)];
+        }
+        
+        /**
+         * Appends the given value and returns the offset that it was stored at.
+         */
+        int add(int value) {
+            if (length == data.length) {
+                data = Arrays.copyOf(data, length * 2);
+            }
+            data[length] = value;
+            return length++;
+        }
+        
+        void set(int offset, int value) {
+            data[offset] = value;
+        }
+        
+        int[] toArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+
     /**
      * Represents an AGI Instruction, being an Operation and it's List of Operands. This class
      * is abstract since all Instructions will be either an Action or a Condition.
@@ -366,6 +544,11 @@ public class Logic extends Resource {
      */
     public class Action extends Instruction {
 
+        /**
+         * The index of this Action within it's Logic's Action List. Set by link().
+         */
+        int actionNumber;
+        
         public Action(Operation operation, List<Operand> operands)  {
             super(operation, operands);
         }
@@ -374,7 +557,7 @@ public class Logic extends Resource {
          * Get the index of this Action within it's Logic's Action List.
          */
         public int getActionNumber() { 
-            return this.logic.addressToActionIndex.get(this.address);
+            return actionNumber;
         }
     }
 
@@ -383,6 +566,11 @@ public class Logic extends Resource {
      */
     public abstract class JumpAction extends Action {
         
+        /**
+         * The index of the Action that this JumpAction jumps to. Set by link().
+         */
+        int destinationActionIndex;
+        
         public JumpAction(Operation operation, List<Operand> operands)  {
             super(operation, operands);
         }
@@ -390,10 +578,10 @@ public class Logic extends Resource {
         /**
          * Gets the index of the Action that this JumpAction jumps to.
          * 
-         * @return The index of the Action that this JumpAction jumps to.
+         * @return The index of the Action that this JumpAction jumps to, or -1 if there is no Action at the destination address.
          */
         public int getDestinationActionIndex() {
-            return this.logic.addressToActionIndex.get(this.getDestinationAddress());
+            return destinationActionIndex;
         }
 
         /**
@@ -657,6 +845,33 @@ public class Logic extends Resource {
         }
     }
 
+    /**
+     * Gets the name of the AGI action command with the given opcode, e.g. draw.pic
+     *
+     * @param opcode The opcode of the action command.
+     *
+     * @return The name of the action command, or null if the opcode is not known.
+     */
+    public static String getActionName(int opcode) {
+        if (opcode == 0xfe) return "goto";
+        if (opcode == 0xff) return "if";
+        return ((opcode >= 0) && (opcode < 0xfe) && (opcode < ACTION_OPERATIONS.length) &&
+                (ACTION_OPERATIONS[opcode].opcode == opcode)? ACTION_OPERATIONS[opcode].name : null);
+    }
+
+    /**
+     * Gets the name of the AGI test command with the given opcode, e.g. said
+     *
+     * @param opcode The opcode of the test command.
+     *
+     * @return The name of the test command, or null if the opcode is not known.
+     */
+    public static String getConditionName(int opcode) {
+        if (opcode == 0xfc) return "or";
+        if (opcode == 0xfd) return "not";
+        return ((opcode > 0) && (opcode < TEST_OPERATIONS.length)? TEST_OPERATIONS[opcode].name : null);
+    }
+
     /**
      * Static array of the AGI ACTION Operations.
      */
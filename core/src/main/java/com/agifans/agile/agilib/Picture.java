@@ -24,6 +24,18 @@ public class Picture extends Resource {
         this.jagiPictureContext = new PictureContext();
     }
     
+    /**
+     * Constructor for Picture that uses the given PictureContext as its drawing state,
+     * rather than creating a new blank one.
+     * 
+     * @param jagiPicture The JAGI Picture that holds the decoded picture ops.
+     * @param jagiPictureContext The PictureContext to draw on.
+     */
+    private Picture(com.agifans.agile.agilib.jagi.pic.Picture jagiPicture, PictureContext jagiPictureContext) {
+        this.jagiPicture = jagiPicture;
+        this.jagiPictureContext = jagiPictureContext;
+    }
+    
     public Picture(InputStream is) throws IOException {
         try {
             // At this point, JAGI has already read the 5 byte header, i.e.
@@ -65,10 +77,20 @@ public class Picture extends Resource {
     public Picture clone() {
         // It doesn't matter that we're using the same JAGI Picture. The actual
         // drawing state is in the PictureContext, which will be a different
-        // instance. The JAGI Picture contains only the Vector of picture codes.
+        // instance. The JAGI Picture contains only the decoded picture ops.
         return new Picture(jagiPicture);
     }
     
+    /**
+     * Creates a copy of this Picture, including everything that has been drawn on it so 
+     * far, and the current pen and colours, which an overlay picture would carry on with.
+     * 
+     * @return The copy of the Picture.
+     */
+    public Picture copy() {
+        return new Picture(jagiPicture, new PictureContext(jagiPictureContext));
+    }
+    
     public void drawPicture() {
         drawPicture(jagiPictureContext);
     }
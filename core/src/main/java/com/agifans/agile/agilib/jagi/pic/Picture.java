@@ -8,21 +8,36 @@
 
 package com.agifans.agile.agilib.jagi.pic;
 
-import java.util.Enumeration;
-import java.util.Vector;
-
 /**
+ * A decoded picture, held as a compact stream of ops that is walked directly when
+ * the picture is drawn. Each op is an AGI picture command code, followed by its
+ * arguments. The colour and pen commands have a single argument. The line, fill and
+ * plot commands are followed by the number of data values, and then the data values,
+ * i.e. the coordinates, with relative line displacements already decoded.
+ *
  * @author Dr. Z
  * @version 0.00.00.01
  */
 public class Picture {
-    protected Vector entries;
-    
+
+    /**
+     * Op for a plot with the splatter brush, where each point is preceded by its
+     * splatter pattern number. Plots with the solid brush use the CMD_PLOT code.
+     */
+    public static final short OP_SPLATTER = (short) 0x1FA;
+
+    /**
+     * The op stream.
+     */
+    protected short[] ops;
+
     /**
      * Creates new Picture
+     *
+     * @param ops The op stream, as decoded by the PictureProvider.
      */
-    public Picture(Vector entries) {
-        this.entries = entries;
+    public Picture(short[] ops) {
+        this.ops = ops;
     }
 
     public PictureContext draw() throws PictureException {
@@ -33,11 +48,73 @@ public class Picture {
     }
 
     public void draw(PictureContext pictureContext) throws PictureException {
-        Enumeration en = entries.elements();
+        short[] ops = this.ops;
+        int pos = 0;
+        int op, end;
+
+        while (pos < ops.length) {
+            op = ops[pos++];
+
+            switch (op) {
+                case StandardPictureProvider.CMD_CHANGEPICCOLOR:
+                    pictureContext.picColor = pictureContext.translatePixel((byte) ops[pos++]);
+                    continue;
+
+                case StandardPictureProvider.CMD_CHANGEPRICOLOR:
+                    pictureContext.priColor = (byte) ops[pos++];
+                    continue;
+
+                case StandardPictureProvider.CMD_DISABLEPICDRAW:
+                    pictureContext.picColor = null;
+                    continue;
+
+                case StandardPictureProvider.CMD_DISABLEPRIDRAW:
+                    pictureContext.priColor = null;
+                    continue;
+
+                case StandardPictureProvider.CMD_CHANGEPEN:
+                    pictureContext.penStyle = (byte) ops[pos++];
+                    continue;
+            }
+
+            // All the other ops are followed by the number of data values.
+            end = pos + 1 + (ops[pos] & 0xFFFF);
+            pos++;
+
+            switch (op) {
+                case StandardPictureProvider.CMD_DRAWXCORNER:
+                    PictureEntryDrawX.draw(pictureContext, ops, pos, end);
+                    break;
+
+                case StandardPictureProvider.CMD_DRAWYCORNER:
+                    PictureEntryDrawY.draw(pictureContext, ops, pos, end);
+                    break;
+
+                case StandardPictureProvider.CMD_DRAWABSLINE:
+                    PictureEntryAbsLine.draw(pictureContext, ops, pos, end);
+                    break;
+
+                case StandardPictureProvider.CMD_DRAWRELLINE:
+                    PictureEntryRelLine.draw(pictureContext, ops, pos, end);
+                    break;
+
+                case StandardPictureProvider.CMD_FILL:
+                    PictureEntryFill.draw(pictureContext, ops, pos, end);
+                    break;
+
+                case StandardPictureProvider.CMD_PLOT:
+                    PictureEntryPlot.drawPoints(pictureContext, ops, pos, end);
+                    break;
+
+                case OP_SPLATTER:
+                    PictureEntryPlot.drawPlot(pictureContext, ops, pos, end);
+                    break;
+
+                default:
+                    throw new CorruptedPictureException();
+            }
 
-        while (en.hasMoreElements()) {
-            PictureEntry entry = (PictureEntry) en.nextElement();
-            entry.draw(pictureContext);
+            pos = end;
         }
     }
-}
\ No newline at end of file
+}
@@ -64,6 +64,20 @@ public class PictureContext {
         Arrays.fill(priData, 4);
     }
 
+    /**
+     * Creates a copy of the given Picture Context.
+     *
+     * @param pictureContext The Picture Context to copy.
+     */
+    public PictureContext(PictureContext pictureContext) {
+        picData = pictureContext.picData.clone();
+        priData = pictureContext.priData.clone();
+        picColor = pictureContext.picColor;
+        priColor = pictureContext.priColor;
+        penStyle = pictureContext.penStyle;
+        whitePixel = pictureContext.whitePixel;
+    }
+
     /**
      * Clips a variable with a maximum.
      *
@@ -245,22 +259,6 @@ public class PictureContext {
         }
     }
 
-    public boolean isFillCorrect(int x, int y) {
-        if ((picColor == null) && (priColor == null)) {
-            return false;
-        }
-
-        if ((priColor == null) && (picColor != null) && (picColor != whitePixel)) {
-            return (getPixel(x, y) == whitePixel);
-        }
-
-        if ((priColor != null) && (picColor == null) && (priColor != 4)) {
-            return (getPriorityPixel(x, y) == 4);
-        }
-
-        return ((picColor != null) && (getPixel(x, y) == whitePixel) && (picColor != whitePixel));
-    }
-
     public int[] getPictureData() {
         return picData;
     }
@@ -1,13 +0,0 @@
-/*
- *  PictureEntry.java
- *  Adventure Game Interpreter Picture Package
- *
- *  Created by Dr. Z.
- *  Copyright (c) 2001 Dr. Z. All rights reserved.
- */
-
-package com.agifans.agile.agilib.jagi.pic;
-
-public abstract class PictureEntry {
-    public abstract void draw(PictureContext pictureContext);
-}
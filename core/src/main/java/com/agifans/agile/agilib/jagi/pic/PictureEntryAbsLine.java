@@ -8,10 +8,6 @@
 
 package com.agifans.agile.agilib.jagi.pic;
 
-import java.util.Enumeration;
-
-import com.agifans.agile.agilib.jagi.awt.Point;
-
 /**
  * <P><B><CODE>0xF6</CODE></B>: Absolute line</P>
  * <p>
@@ -26,19 +22,28 @@ import com.agifans.agile.agilib.jagi.awt.Point;
  * (52, 81) to (56, 83).
  * </P>
  */
-public class PictureEntryAbsLine extends PictureEntryMulti {
-    public void draw(PictureContext pictureContext) {
-        Enumeration en = points.elements();
-
-        Point p1 = (Point) en.nextElement();
+public class PictureEntryAbsLine {
+    /**
+     * Draws the lines.
+     *
+     * @param pictureContext The PictureContext to draw in to.
+     * @param data The op stream that holds the coordinates.
+     * @param start The position in the op stream of the first coordinate.
+     * @param end The position in the op stream after the last coordinate.
+     */
+    public static void draw(PictureContext pictureContext, short[] data, int start, int end) {
+        int x1 = data[start];
+        int y1 = data[start + 1];
 
-        if (points.size() == 1) {
-            pictureContext.drawLine(p1.x, p1.y, p1.x, p1.y);
+        if ((end - start) == 2) {
+            pictureContext.drawLine(x1, y1, x1, y1);
         } else {
-            while (en.hasMoreElements()) {
-                Point p2 = (Point) en.nextElement();
-                pictureContext.drawLine(p1.x, p1.y, p2.x, p2.y);
-                p1 = p2;
+            for (int i = start + 2; i < end; i += 2) {
+                int x2 = data[i];
+                int y2 = data[i + 1];
+                pictureContext.drawLine(x1, y1, x2, y2);
+                x1 = x2;
+                y1 = y2;
             }
         }
     }
@@ -1,21 +0,0 @@
-/*
- *  PictureEntryChangePen.java
- *  Adventure Game Interpreter Picture Package
- *
- *  Created by Dr. Z.
- *  Copyright (c) 2001 Dr. Z. All rights reserved.
- */
-
-package com.agifans.agile.agilib.jagi.pic;
-
-public class PictureEntryChangePen extends PictureEntry {
-    protected byte penStyle;
-
-    public PictureEntryChangePen(byte penStyle) {
-        this.penStyle = penStyle;
-    }
-
-    public void draw(PictureContext pictureContext) {
-        pictureContext.penStyle = penStyle;
-    }
-}
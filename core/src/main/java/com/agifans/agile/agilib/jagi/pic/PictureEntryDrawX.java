@@ -8,10 +8,6 @@
 
 package com.agifans.agile.agilib.jagi.pic;
 
-import java.util.Enumeration;
-
-import com.agifans.agile.agilib.jagi.awt.Point;
-
 /**
  * <P><B><CODE>0xF5</CODE></B>: Draw an X corner</P>
  *
@@ -34,22 +30,27 @@ import com.agifans.agile.agilib.jagi.awt.Point;
  * SXX
  * (0x16, 0x16)   (0x18, 0x16)</PRE>
  */
-public class PictureEntryDrawX extends PictureEntryMulti {
-    public void draw(PictureContext pictureContext) {
-        Enumeration en = points.elements();
+public class PictureEntryDrawX {
+    /**
+     * Draws the corner lines.
+     *
+     * @param pictureContext The PictureContext to draw in to.
+     * @param data The op stream that holds the coordinates.
+     * @param start The position in the op stream of the starting x coordinate.
+     * @param end The position in the op stream after the last coordinate.
+     */
+    public static void draw(PictureContext pictureContext, short[] data, int start, int end) {
         int x1, y1, x2, y2;
         boolean b = true;
-        Point p;
 
-        p = (Point) en.nextElement();
-        x1 = x2 = p.x;
-        y1 = y2 = p.y;
+        x1 = x2 = data[start];
+        y1 = y2 = data[start + 1];
 
-        while (en.hasMoreElements()) {
+        for (int i = start + 2; i < end; i++) {
             if (b) {
-                x2 = ((Integer) en.nextElement()).intValue();
+                x2 = data[i];
             } else {
-                y2 = ((Integer) en.nextElement()).intValue();
+                y2 = data[i];
             }
 
             pictureContext.drawLine(x1, y1, x2, y2);
@@ -8,10 +8,7 @@
 
 package com.agifans.agile.agilib.jagi.pic;
 
-import java.util.EmptyStackException;
-import java.util.Enumeration;
-
-import com.agifans.agile.agilib.jagi.awt.Point;
+import java.util.Arrays;
 
 /**
  * <P><B><CODE>0xF8</CODE></B>: Fill</P>
@@ -35,107 +32,119 @@ import com.agifans.agile.agilib.jagi.awt.Point;
  * necessarily exist in the priority screen.
  * </P>
  */
-public class PictureEntryFill extends PictureEntryMulti {
-    public void draw(PictureContext pictureContext) {
-        Point current;
-        Enumeration en = points.elements();
-        PointStack stack = new PointStack(200, 200);
-        int width = pictureContext.width - 1;
-        int height = pictureContext.height - 1;
-
-        while (en.hasMoreElements()) {
-            current = (Point) en.nextElement();
-
-            stack.push(current.x, current.y);
+public class PictureEntryFill {
+    /**
+     * Flood fills from each of the starting locations. The fill spreads to the left and
+     * right along a row, a whole span of pixels at a time, and then seeds each run of
+     * fillable pixels that touches the span in the rows above and below. The pixels that
+     * are filled are the same as for a pixel by pixel 4-way flood fill.
+     *
+     * @param pictureContext The PictureContext to draw in to.
+     * @param data The op stream that holds the starting coordinates.
+     * @param start The position in the op stream of the first starting x coordinate.
+     * @param end The position in the op stream after the last starting coordinate.
+     */
+    public static void draw(PictureContext pictureContext, short[] data, int start, int end) {
+        Integer picColor = pictureContext.picColor;
+        Byte priColor = pictureContext.priColor;
+        int[] picData = pictureContext.picData;
+        int[] priData = pictureContext.priData;
+        int[] fillData;
+        int background;
+
+        // Work out which screen the fill floods, and the value of the pixels that it floods.
+        // The fill does nothing if it would draw those pixels in the same value.
+        if (picColor != null) {
+            if (picColor.intValue() == pictureContext.whitePixel) {
+                return;
+            }
 
-            try {
-                while (true) {
-                    stack.pop(current);
+            fillData = picData;
+            background = pictureContext.whitePixel;
+        } else if (priColor != null) {
+            if (priColor.intValue() == 4) {
+                return;
+            }
 
-                    if (pictureContext.isFillCorrect(current.x, current.y)) {
-                        pictureContext.putPixel(current.x, current.y);
+            fillData = priData;
+            background = 4;
+        } else {
+            return;
+        }
 
-                        if (current.x > 0 && pictureContext.isFillCorrect(current.x - 1, current.y)) {
-                            stack.push(current.x - 1, current.y);
-                        }
+        boolean drawPic = (picColor != null);
+        boolean drawPri = (priColor != null);
+        int pic = (drawPic? picColor.intValue() : 0);
+        int pri = (drawPri? priColor.intValue() : 0);
+        int width = pictureContext.width;
+        int height = pictureContext.height;
+        int length = width * height;
+        int[] stack = new int[64];
+        int size, index, rowStart, left, right, row, j;
+        boolean inRun;
+
+        for (int i = start; i < end; i += 2) {
+            int x = data[i];
+            int y = data[i + 1];
+
+            // Starting locations off the picture are ignored.
+            if ((x < 0) || (y < 0) || (x >= width) || (y >= height)) {
+                continue;
+            }
 
-                        if (current.x < width && pictureContext.isFillCorrect(current.x + 1, current.y)) {
-                            stack.push(current.x + 1, current.y);
-                        }
+            stack[0] = (y * width) + x;
+            size = 1;
 
-                        if (current.y < height && pictureContext.isFillCorrect(current.x, current.y + 1)) {
-                            stack.push(current.x, current.y + 1);
-                        }
+            while (size > 0) {
+                index = stack[--size];
 
-                        if (current.y > 0 && pictureContext.isFillCorrect(current.x, current.y - 1)) {
-                            stack.push(current.x, current.y - 1);
-                        }
-                    }
+                if (fillData[index] != background) {
+                    continue;
                 }
-            } catch (EmptyStackException esex) {
-            }
-        }
-    }
 
-    public static class PointStack {
-        protected int increment;
-        protected int elementCount;
-        protected short[] x;
-        protected short[] y;
-
-        /**
-         * Creates new Point Stack
-         */
-        public PointStack() {
-            increment = 15;
-        }
+                rowStart = index - (index % width);
+                left = index;
+                right = index;
 
-        public PointStack(int initialSize, int increment) {
-            this.increment = increment;
-            ensureCapacity(initialSize);
-        }
+                while ((left > rowStart) && (fillData[left - 1] == background)) {
+                    left--;
+                }
 
-        public void pop(Point pt) {
-            if (elementCount == 0) {
-                throw new EmptyStackException();
-            }
+                while ((right < (rowStart + width - 1)) && (fillData[right + 1] == background)) {
+                    right++;
+                }
 
-            elementCount--;
-            pt.x = x[elementCount];
-            pt.y = y[elementCount];
-        }
+                for (j = left; j <= right; j++) {
+                    if (drawPic) {
+                        picData[j] = pic;
+                    }
 
-        public void push(int x, int y) {
-            ensureCapacity(elementCount + 1);
+                    if (drawPri) {
+                        priData[j] = pri;
+                    }
+                }
 
-            this.x[elementCount] = (short) x;
-            this.y[elementCount] = (short) y;
-            elementCount++;
-        }
+                // Seed the start of each run of fillable pixels above and below the span.
+                for (row = -width; row <= width; row += (width * 2)) {
+                    if (((rowStart + row) < 0) || ((rowStart + row) >= length)) {
+                        continue;
+                    }
 
-        public void clear() {
-            elementCount = 0;
-        }
+                    inRun = false;
 
-        public void ensureCapacity(int minCapacity) {
-            if (x == null) {
-                x = new short[minCapacity + increment];
-                y = new short[minCapacity + increment];
-            } else if (x.length < minCapacity) {
-                short[] nx = new short[minCapacity + increment];
-                short[] ny = new short[minCapacity + increment];
-                int i, l = elementCount;
-
-                for (i = 0; i < l; i++) {
-                    nx[i] = x[i];
-                }
+                    for (j = left + row; j <= right + row; j++) {
+                        if (fillData[j] != background) {
+                            inRun = false;
+                        } else if (!inRun) {
+                            if (size == stack.length) {
+                                stack = Arrays.copyOf(stack, size * 2);
+                            }
 
-                for (i = 0; i < l; i++) {
-                    ny[i] = y[i];
+                            stack[size++] = j;
+                            inRun = true;
+                        }
+                    }
                 }
-
-                x = nx;
-                y = ny;
             }
         }
     }
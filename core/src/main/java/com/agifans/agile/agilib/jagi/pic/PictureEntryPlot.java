@@ -8,11 +8,7 @@
 
 package com.agifans.agile.agilib.jagi.pic;
 
-import java.util.Enumeration;
-
-import com.agifans.agile.agilib.jagi.awt.Point;
-
-public class PictureEntryPlot extends PictureEntryMulti {
+public class PictureEntryPlot {
     /**
      * Circle Bitmaps
      */
@@ -61,32 +57,29 @@ public class PictureEntryPlot extends PictureEntryMulti {
                     0x06, 0x6f, 0xc6, 0x4a, 0xa4, 0x75, 0x97, 0xe1
             };
 
-    public void draw(PictureContext pictureContext) {
-        if ((pictureContext.penStyle & 0x20) == 0x20) {
-            drawPlot(pictureContext);
-        } else {
-            drawPoints(pictureContext);
-        }
-    }
-
-    public void drawPlot(PictureContext pictureContext) {
-        Enumeration en = points.elements();
+    /**
+     * Plots with the splatter brush.
+     *
+     * @param pictureContext The PictureContext to draw in to.
+     * @param data The op stream that holds the pattern numbers and coordinates.
+     * @param start The position in the op stream of the first pattern number.
+     * @param end The position in the op stream after the last coordinate.
+     */
+    public static void drawPlot(PictureContext pictureContext, short[] data, int start, int end) {
         int circlePos = 0;
         int bitPos;
         int x, y, x1, y1, penSize, penSizeTrue;
         boolean circle;
-        int[] p;
 
         circle = !((pictureContext.penStyle & 0x10) == 0x10);
         penSize = (pictureContext.penStyle & 0x07);
         penSizeTrue = penSize;
 
-        while (en.hasMoreElements()) {
-            p = (int[]) en.nextElement();
+        for (int i = start; i < end; i += 3) {
             circlePos = 0;
-            bitPos = splatterStart[p[0]];
-            x = p[1];
-            y = p[2];
+            bitPos = splatterStart[data[i]];
+            x = data[i + 1];
+            y = data[i + 2];
 
             if (x < penSize) {
                 x = penSize - 1;
@@ -121,21 +114,26 @@ public class PictureEntryPlot extends PictureEntryMulti {
         }
     }
 
-    public void drawPoints(PictureContext pictureContext) {
-        Enumeration en = points.elements();
+    /**
+     * Plots with the solid brush.
+     *
+     * @param pictureContext The PictureContext to draw in to.
+     * @param data The op stream that holds the coordinates.
+     * @param start The position in the op stream of the first x coordinate.
+     * @param end The position in the op stream after the last coordinate.
+     */
+    public static void drawPoints(PictureContext pictureContext, short[] data, int start, int end) {
         int circlePos;
         int x, y, x1, y1, penSize, penSizeTrue;
         boolean circle;
-        Point p;
 
         circle = !((pictureContext.penStyle & 0x10) == 0x10);
         penSize = (pictureContext.penStyle & 0x07);
         penSizeTrue = penSize;
 
-        while (en.hasMoreElements()) {
-            p = (Point) en.nextElement();
-            x = p.x;
-            y = p.y;
+        for (int i = start; i < end; i += 2) {
+            x = data[i];
+            y = data[i + 1];
             circlePos = 0;
 
             if (x < penSize) {
@@ -8,10 +8,6 @@
 
 package com.agifans.agile.agilib.jagi.pic;
 
-import java.util.Enumeration;
-
-import com.agifans.agile.agilib.jagi.awt.Point;
-
 /**
  * <P><B><CODE>0xF7</CODE></B>: Relative line</P>
  * <p>
@@ -42,22 +38,26 @@ import com.agifans.agile.agilib.jagi.awt.Point;
  * X</PRE>
  */
 
-public class PictureEntryRelLine extends PictureEntryMulti {
-    public void draw(PictureContext pictureContext) {
-        Enumeration en = points.elements();
-        Point p;
+public class PictureEntryRelLine {
+    /**
+     * Draws the relative lines.
+     *
+     * @param pictureContext The PictureContext to draw in to.
+     * @param data The op stream that holds the starting coordinates and displacements.
+     * @param start The position in the op stream of the starting x coordinate.
+     * @param end The position in the op stream after the last displacement.
+     */
+    public static void draw(PictureContext pictureContext, short[] data, int start, int end) {
         int x1, y1, x2, y2;
 
-        p = (Point) en.nextElement();
-        x1 = x2 = p.x;
-        y1 = y2 = p.y;
+        x1 = x2 = data[start];
+        y1 = y2 = data[start + 1];
 
         pictureContext.putPixel(x1, y1);
 
-        while (en.hasMoreElements()) {
-            p = (Point) en.nextElement();
-            x2 += p.x;
-            y2 += p.y;
+        for (int i = start + 2; i < end; i += 2) {
+            x2 += data[i];
+            y2 += data[i + 1];
 
             pictureContext.drawLine(x1, y1, x2, y2);
             x1 = x2;
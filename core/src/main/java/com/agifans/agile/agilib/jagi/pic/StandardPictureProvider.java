@@ -11,7 +11,7 @@ package com.agifans.agile.agilib.jagi.pic;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Vector;
+import java.util.Arrays;
 
 public class StandardPictureProvider implements PictureProvider {
     protected static final short CMD_START = (short) 0xF0;
@@ -31,9 +31,10 @@ public class StandardPictureProvider implements PictureProvider {
 
     public Picture loadPicture(InputStream in) throws IOException, PictureException {
         int command, c, x, y;
-        Vector entries = new Vector();
+        short[] ops = new short[1024];
+        int length = 0;
         int lastPen = 0;
-        PictureEntryMulti entry;
+        int entry;
 
         try {
             command = in.read();
@@ -43,36 +44,31 @@ public class StandardPictureProvider implements PictureProvider {
                     break;
                 }
 
+                // The longest start of an op is the command, count and starting coordinates.
+                if ((length + 4) > ops.length) {
+                    ops = Arrays.copyOf(ops, ops.length * 2);
+                }
+
                 switch (command) {
                     case CMD_CHANGEPICCOLOR:
-                        entries.add(new PictureEntryChangePicColor((byte) in.read()));
-                        command = in.read();
-                        break;
-
                     case CMD_CHANGEPRICOLOR:
-                        entries.add(new PictureEntryChangePriColor((byte) in.read()));
+                        ops[length++] = (short) command;
+                        ops[length++] = (byte) in.read();
                         command = in.read();
                         break;
 
                     case CMD_DISABLEPICDRAW:
-                        entries.add(new PictureEntryChangePicColor(null));
-                        command = in.read();
-                        break;
-
                     case CMD_DISABLEPRIDRAW:
-                        entries.add(new PictureEntryChangePriColor(null));
+                        ops[length++] = (short) command;
                         command = in.read();
                         break;
 
                     case CMD_DRAWXCORNER:
                     case CMD_DRAWYCORNER:
-                        if (command == CMD_DRAWXCORNER) {
-                            entry = new PictureEntryDrawX();
-                        } else {
-                            entry = new PictureEntryDrawY();
-                        }
-
-                        entry.add(in.read(), in.read());
+                        ops[length++] = (short) command;
+                        entry = length++;
+                        ops[length++] = (short) in.read();
+                        ops[length++] = (short) in.read();
 
                         while (true) {
                             command = in.read();
@@ -81,15 +77,25 @@ public class StandardPictureProvider implements PictureProvider {
                                 break;
                             }
 
-                            entry.add(command);
+                            if (length == ops.length) {
+                                ops = Arrays.copyOf(ops, ops.length * 2);
+                            }
+
+                            ops[length++] = (short) command;
                         }
 
-                        entries.add(entry);
+                        ops[entry] = (short) (length - entry - 1);
                         break;
 
                     case CMD_DRAWABSLINE:
-                        entry = new PictureEntryAbsLine();
-                        entry.add(in.read(), in.read());
+                    case CMD_FILL:
+                        ops[length++] = (short) command;
+                        entry = length++;
+
+                        if (command == CMD_DRAWABSLINE) {
+                            ops[length++] = (short) in.read();
+                            ops[length++] = (short) in.read();
+                        }
 
                         while (true) {
                             command = in.read();
@@ -98,15 +104,24 @@ public class StandardPictureProvider implements PictureProvider {
                                 break;
                             }
 
-                            entry.add(command, in.read());
+                            c = in.read();
+
+                            if ((length + 2) > ops.length) {
+                                ops = Arrays.copyOf(ops, ops.length * 2);
+                            }
+
+                            ops[length++] = (short) command;
+                            ops[length++] = (short) c;
                         }
 
-                        entries.add(entry);
+                        ops[entry] = (short) (length - entry - 1);
                         break;
 
                     case CMD_DRAWRELLINE:
-                        entry = new PictureEntryRelLine();
-                        entry.add(in.read(), in.read());
+                        ops[length++] = (short) command;
+                        entry = length++;
+                        ops[length++] = (short) in.read();
+                        ops[length++] = (short) in.read();
 
                         while (true) {
                             command = in.read();
@@ -126,37 +141,27 @@ public class StandardPictureProvider implements PictureProvider {
                                 y = -y;
                             }
 
-                            entry.add(x, y);
-                        }
-
-                        entries.add(entry);
-                        break;
-
-                    case CMD_FILL:
-                        entry = new PictureEntryFill();
-
-                        while (true) {
-                            command = in.read();
-
-                            if ((command >= CMD_START) || (command < 0)) {
-                                break;
+                            if ((length + 2) > ops.length) {
+                                ops = Arrays.copyOf(ops, ops.length * 2);
                             }
 
-                            c = in.read();
-                            entry.add(command, c);
+                            ops[length++] = (short) x;
+                            ops[length++] = (short) y;
                         }
 
-                        entries.add(entry);
+                        ops[entry] = (short) (length - entry - 1);
                         break;
 
                     case CMD_CHANGEPEN:
                         lastPen = in.read();
-                        entries.add(new PictureEntryChangePen((byte) lastPen));
+                        ops[length++] = (short) command;
+                        ops[length++] = (byte) lastPen;
                         command = in.read();
                         break;
 
                     case CMD_PLOT:
-                        entry = new PictureEntryPlot();
+                        ops[length++] = (((lastPen & 0x20) == 0x20)? Picture.OP_SPLATTER : (short) command);
+                        entry = length++;
 
                         while (true) {
                             command = in.read();
@@ -165,19 +170,21 @@ public class StandardPictureProvider implements PictureProvider {
                                 break;
                             }
 
+                            if ((length + 3) > ops.length) {
+                                ops = Arrays.copyOf(ops, ops.length * 2);
+                            }
+
                             if ((lastPen & 0x20) == 0x20) {
-                                command = (command >> 1) & 0x7f;
-                                x = in.read();
-                                y = in.read();
-                                entry.add(new int[]{command, x, y});
+                                ops[length++] = (short) ((command >> 1) & 0x7f);
+                                ops[length++] = (short) in.read();
+                                ops[length++] = (short) in.read();
                             } else {
-                                x = command;
-                                y = in.read();
-                                entry.add(x, y);
+                                ops[length++] = (short) command;
+                                ops[length++] = (short) in.read();
                             }
                         }
 
-                        entries.add(entry);
+                        ops[entry] = (short) (length - entry - 1);
                         break;
 
                     case CMD_EOP:
@@ -192,7 +199,7 @@ public class StandardPictureProvider implements PictureProvider {
         }
 
         in.close();
-        return new Picture(entries);
+        return new Picture(Arrays.copyOf(ops, length));
     }
 
     /*
@@ -183,6 +183,41 @@ public class ResourceCache {
         return view;
     }
 
+    /**
+     * Forgets the decoded copy of the given resource, if there is one, so that it can be 
+     * garbage collected. It will be decoded again if it is asked for.
+     *
+     * @param resType   Resource type
+     * @param resNumber Resource number
+     */
+    public void discard(byte resType, short resNumber) {
+        switch (resType) {
+            case ResourceProvider.TYPE_LOGIC:
+                if (logics != null) {
+                    logics[resNumber] = null;
+                }
+                break;
+
+            case ResourceProvider.TYPE_PICTURE:
+                if (pictures != null) {
+                    pictures[resNumber] = null;
+                }
+                break;
+
+            case ResourceProvider.TYPE_SOUND:
+                if (sounds != null) {
+                    sounds[resNumber] = null;
+                }
+                break;
+
+            case ResourceProvider.TYPE_VIEW:
+                if (views != null) {
+                    views[resNumber] = null;
+                }
+                break;
+        }
+    }
+
     public Words getWords() throws IOException, ResourceException {
         if (words == null) {
             words = getWordsProvider().loadWords(resourceProvider.open(ResourceProvider.TYPE_WORD, (short) 0));
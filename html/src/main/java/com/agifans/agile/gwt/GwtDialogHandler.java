@@ -197,7 +197,7 @@ public class GwtDialogHandler implements DialogHandler {
                         hasDirFile && hasVolFile) {
                         try {
                             // Now check that the files are able to be decoded.
-                            Game game = new Game(gameFilesMap);
+                            Game game = new Game(gameFilesMap, true);
                             Detection detection = new Detection(game);
                             String opfsDirectoryName = null;
                             String gameName = null;
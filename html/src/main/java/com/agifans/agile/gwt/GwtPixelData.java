@@ -1,5 +1,6 @@
 package com.agifans.agile.gwt;
 
+import com.agifans.agile.DirtyTiles;
 import com.agifans.agile.PixelData;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.google.gwt.canvas.dom.client.Context2d;
@@ -17,7 +18,7 @@ import com.google.gwt.typedarrays.shared.Uint8ClampedArray;
  * - It uses a canvas element, not a ByteBuffer, for the pixels.
  * - When the Pixmap is drawn to the Texture, it is directly from the canvas.
  * - Therefore, as long as the canvas is up to date, it will render to the Texture.
- * - And so the updatePixel method simply copies the pixelArray to the canvas image data.
+ * - And so the acquireFrame method simply copies the published frame to the canvas image data.
  * 
  * Since the GWT version of AGILE is using a web worker for the background thread,
  * the only way to truly match what the original AGI interpreter does with regards
@@ -31,19 +32,67 @@ import com.google.gwt.typedarrays.shared.Uint8ClampedArray;
  * been quite complicated to implement in a way that would have been truly the same
  * as the original AGI interpreter. It would also have been a lot more overhead.
  * Luckily the SharedArrayBuffer works well as an alternative and it can exactly
- * match what the Desktop platform is doing, which in turn matches AGI. We don't really
- * have to worry about synchronising the SharedArrayBuffer access with Atomics either,
- * as one side is always ready and will not modify.
+ * match what the Desktop platform is doing, which in turn matches AGI.
+ * 
+ * The web worker draws in to its own pixel array, and copies it in to the 
+ * SharedArrayBuffer only when it publishes a complete frame. The copy is guarded by a 
+ * sequence counter, also in the SharedArrayBuffer, which is odd while a copy is in 
+ * progress. The UI thread checks the counter before and after it copies the frame out of
+ * the SharedArrayBuffer, and only puts that copy in to the canvas if the counter was even
+ * and unchanged, so it never displays a partially drawn or partially copied frame.
  */
 public class GwtPixelData extends PixelData {
 
+    /**
+     * The most recently published frame, stored in the SharedArrayBuffer.
+     */
+    private Uint8ClampedArray framePixelArray;
+    
+    /**
+     * Single element array, stored in the same SharedArrayBuffer as the frame, holding the
+     * number of times that a frame has been published, times two. It is odd while the web
+     * worker is copying a frame in.
+     */
+    private Int32Array frameSequence;
+    
+    /**
+     * The frame sequence number that the UI thread last acquired.
+     */
+    private int acquiredSequence;
+    
+    /**
+     * The UI thread's own copy of the frame being acquired. The frame is copied here first,
+     * so that the canvas is only updated once the copy is known to be a complete frame.
+     */
+    private Uint8ClampedArray acquiredPixelArray;
+    
+    /**
+     * The pixels that the web worker draws to.
+     */
     private Uint8ClampedArray pixelArray;
     
+    /**
+     * An Int32Array view of the same pixels as pixelArray, so that a whole pixel can be
+     * set with a single write. Typed arrays use the platform byte order, which for all
+     * browsers is little endian, so the R, G, B, A bytes are held as 0xAABBGGRR.
+     */
+    private Int32Array pixelInts;
+    
+    /**
+     * The width of the pixel data, i.e. the distance between rows.
+     */
+    private int width = 320;
+    
     private Uint8ClampedArray backupPixelArray;
     
     private Int32Array egaPaletteImageData;
     
     private Int32Array backupEgaPaletteImageData;
+    
+    /**
+     * Whether any pixels have changed since the last frame was published.
+     */
+    private boolean dirty;
 
     /**
      * Constructor for GwtPixelData (used by UI thread)
@@ -57,31 +106,55 @@ public class GwtPixelData extends PixelData {
      * @param sharedArrayBuffer The same SharedArrayBuffer used by the UI thread.
      */
     public GwtPixelData(JavaScriptObject sharedArrayBuffer) {
-        pixelArray = createPixelArray(sharedArrayBuffer);
+        framePixelArray = createPixelArray(sharedArrayBuffer);
+        frameSequence = createFrameSequence(sharedArrayBuffer);
+        pixelArray = TypedArrays.createUint8ClampedArray(framePixelArray.byteLength());
+        pixelInts = createPixelInts(pixelArray);
         backupPixelArray = TypedArrays.createUint8ClampedArray(pixelArray.byteLength());
         egaPaletteImageData = TypedArrays.createInt32Array(pixelArray.byteLength() / 4);
         backupEgaPaletteImageData = TypedArrays.createInt32Array(egaPaletteImageData.length());
     }
     
     private native Uint8ClampedArray createPixelArray(JavaScriptObject sharedArrayBuffer)/*-{
-        return new Uint8ClampedArray(sharedArrayBuffer);
+        // The last 4 bytes of the SharedArrayBuffer hold the frame sequence number.
+        return new Uint8ClampedArray(sharedArrayBuffer, 0, sharedArrayBuffer.byteLength - 4);
     }-*/;
 
     private native Uint8ClampedArray createPixelArray(int width, int height)/*-{
-        var sharedArrayBuffer = new SharedArrayBuffer(width * height * 4);
-        return new Uint8ClampedArray(sharedArrayBuffer);
+        // An extra 4 bytes at the end are for the frame sequence number.
+        var sharedArrayBuffer = new SharedArrayBuffer(width * height * 4 + 4);
+        return new Uint8ClampedArray(sharedArrayBuffer, 0, width * height * 4);
+    }-*/;
+    
+    private native Int32Array createPixelInts(Uint8ClampedArray pixelArray)/*-{
+        return new Int32Array(pixelArray.buffer, pixelArray.byteOffset, pixelArray.length / 4);
+    }-*/;
+    
+    private native Int32Array createFrameSequence(JavaScriptObject sharedArrayBuffer)/*-{
+        return new Int32Array(sharedArrayBuffer, sharedArrayBuffer.byteLength - 4, 1);
+    }-*/;
+    
+    private native static int atomicLoad(Int32Array array)/*-{
+        return Atomics.load(array, 0);
+    }-*/;
+    
+    private native static void atomicStore(Int32Array array, int value)/*-{
+        Atomics.store(array, 0, value);
     }-*/;
     
     public native JavaScriptObject getSharedArrayBuffer()/*-{
-        var pixelArray = this.@com.agifans.agile.gwt.GwtPixelData::pixelArray;
-        return pixelArray.buffer;
+        var framePixelArray = this.@com.agifans.agile.gwt.GwtPixelData::framePixelArray;
+        return framePixelArray.buffer;
     }-*/;
     
     @Override
     public void init(int width, int height) {
-        // The actual pixel array is created using a SharedArrayBuffer, so we need
+        // The frame pixel array is created using a SharedArrayBuffer, so we need
         // to use a native method to do this.
-        pixelArray = createPixelArray(width, height);
+        this.width = width;
+        framePixelArray = createPixelArray(width, height);
+        frameSequence = createFrameSequence(getSharedArrayBuffer());
+        acquiredPixelArray = TypedArrays.createUint8ClampedArray(framePixelArray.byteLength());
     }
 
     @Override
@@ -92,13 +165,15 @@ public class GwtPixelData extends PixelData {
         int index = agiScreenIndex * 4;
         
         // All incoming RGBA8888 colours are from EGA palette, so convert to custom palette.
-        int paletteColour = egaToPaletteMap.getOrDefault(rgba8888Colour, rgba8888Colour);
+        int paletteColour = toPaletteColour(rgba8888Colour);
         
         // Adds RGBA8888 colour to byte array in expected R, G, B, A order.
         pixelArray.set(index, (paletteColour >> 24) & 0xFF);
         pixelArray.set(index + 1, (paletteColour >> 16) & 0xFF);
         pixelArray.set(index + 2, (paletteColour >> 8) & 0xFF);
         pixelArray.set(index + 3, paletteColour & 0xFF);
+        
+        dirty = true;
     }
 
     @Override
@@ -112,13 +187,81 @@ public class GwtPixelData extends PixelData {
             egaPaletteImageData.set(agiScreenIndex++, rgba8888Colour);
             
             // Convert to palette colour.
-            int paletteColour = egaToPaletteMap.getOrDefault(rgba8888Colour, rgba8888Colour);
+            int paletteColour = toPaletteColour(rgba8888Colour);
             
             pixelArray.set(index++, (paletteColour >> 24) & 0xFF);
             pixelArray.set(index++, (paletteColour >> 16) & 0xFF);
             pixelArray.set(index++, (paletteColour >>  8) & 0xFF);
             pixelArray.set(index++, (paletteColour >>  0) & 0xFF);
         }
+        
+        dirty = true;
+    }
+
+    @Override
+    public void copyPixels(int[] rgba8888Src, int srcPos, int srcStride, int agiScreenIndex, int width, int height) {
+        for (int y = 0; y < height; y++, srcPos += srcStride, agiScreenIndex += this.width) {
+            for (int x = 0; x < width; x++) {
+                int rgba8888Colour = rgba8888Src[srcPos + x];
+                egaPaletteImageData.set(agiScreenIndex + x, rgba8888Colour);
+                pixelInts.set(agiScreenIndex + x, Integer.reverseBytes(toPaletteColour(rgba8888Colour)));
+            }
+        }
+        
+        dirty = true;
+    }
+
+    @Override
+    public void stretchPixels(int[] rgba8888Src, int srcPos, int srcStride, int agiScreenIndex, int width, int height) {
+        for (int y = 0; y < height; y++, srcPos += srcStride, agiScreenIndex += this.width) {
+            for (int x = 0, index = agiScreenIndex; x < width; x++) {
+                int rgba8888Colour = rgba8888Src[srcPos + x];
+                int paletteColour = Integer.reverseBytes(toPaletteColour(rgba8888Colour));
+                egaPaletteImageData.set(index, rgba8888Colour);
+                pixelInts.set(index++, paletteColour);
+                egaPaletteImageData.set(index, rgba8888Colour);
+                pixelInts.set(index++, paletteColour);
+            }
+        }
+        
+        dirty = true;
+    }
+
+    @Override
+    public void fillPixels(int agiScreenIndex, int agiScreenLength, int rgba8888Colour) {
+        // Clamped to the screen, as TypedArray.fill treats a negative index as an offset
+        // from the end of the array.
+        int startIndex = Math.max(agiScreenIndex, 0);
+        int endIndex = Math.min(agiScreenIndex + agiScreenLength, pixelInts.length());
+        if (startIndex < endIndex) {
+            fill(egaPaletteImageData, rgba8888Colour, startIndex, endIndex);
+            fill(pixelInts, Integer.reverseBytes(toPaletteColour(rgba8888Colour)), startIndex, endIndex);
+            
+            dirty = true;
+        }
+    }
+    
+    private native static void fill(Int32Array array, int value, int startIndex, int endIndex)/*-{
+        array.fill(value, startIndex, endIndex);
+    }-*/;
+
+    @Override
+    public void drawGlyph(int[] glyphData, int glyphPos, int agiScreenIndex, int foregroundRGBA8888, int backgroundRGBA8888, boolean halfTone) {
+        int foregroundColour = Integer.reverseBytes(toPaletteColour(foregroundRGBA8888));
+        int backgroundColour = Integer.reverseBytes(toPaletteColour(backgroundRGBA8888));
+        for (int row = 0; row < 8; row++, agiScreenIndex += width) {
+            int glyphByte = (glyphData[glyphPos + row] & 0xFF);
+            int mask = glyphRowMask(row, halfTone);
+            for (int bit = 0x80, index = agiScreenIndex; bit != 0; bit >>= 1, index++) {
+                if ((mask & bit) != 0) {
+                    boolean foreground = ((glyphByte & bit) != 0);
+                    egaPaletteImageData.set(index, foreground? foregroundRGBA8888 : backgroundRGBA8888);
+                    pixelInts.set(index, foreground? foregroundColour : backgroundColour);
+                }
+            }
+        }
+        
+        dirty = true;
     }
 
     @Override
@@ -131,12 +274,22 @@ public class GwtPixelData extends PixelData {
     public void restorePixels() {
         pixelArray.set(backupPixelArray);
         egaPaletteImageData.set(backupEgaPaletteImageData);
+        dirty = true;
     }
     
     @Override
     public void clearPixels() {
-        for (int index = 0; index < pixelArray.length(); index++) {
-            pixelArray.set(index, 0);
+        if (pixelArray != null) {
+            for (int index = 0; index < pixelArray.length(); index++) {
+                pixelArray.set(index, 0);
+            }
+            dirty = true;
+        } else {
+            // The UI thread clears the frame directly, as the web worker has been stopped.
+            for (int index = 0; index < framePixelArray.length(); index++) {
+                framePixelArray.set(index, 0);
+            }
+            atomicStore(frameSequence, (atomicLoad(frameSequence) | 1) + 1);
         }
     }
 
@@ -151,8 +304,40 @@ public class GwtPixelData extends PixelData {
     }
 
     @Override
-    public void updatePixmap(Pixmap pixmap) {
-        setImageData(pixelArray, pixmap.getWidth(), pixmap.getHeight(), pixmap.getContext());
+    public void publishFrame() {
+        if (dirty) {
+            dirty = false;
+            
+            // Only the web worker changes the sequence number, so it can be read normally here.
+            int sequence = frameSequence.get(0);
+            atomicStore(frameSequence, sequence + 1);
+            framePixelArray.set(pixelArray);
+            atomicStore(frameSequence, sequence + 2);
+        }
+    }
+
+    @Override
+    public boolean acquireFrame(Pixmap pixmap, DirtyTiles updatedTiles) {
+        int sequence = atomicLoad(frameSequence);
+        if (((sequence & 1) != 0) || (sequence == acquiredSequence)) {
+            // Either a frame is being published right now, or we already have the latest.
+            return false;
+        }
+        
+        acquiredPixelArray.set(framePixelArray);
+        
+        if (atomicLoad(frameSequence) != sequence) {
+            // A new frame was published during the copy, so the copy may hold parts of 
+            // both. The canvas is left as it is, and the latest frame is acquired next time.
+            return false;
+        }
+        acquiredSequence = sequence;
+        
+        setImageData(acquiredPixelArray, pixmap.getWidth(), pixmap.getHeight(), pixmap.getContext());
+        
+        // The Pixmap is a canvas, which is always uploaded in full.
+        updatedTiles.markAll();
+        return true;
     }
     
     private native static void setImageData (ArrayBufferView pixels, int width, int height, Context2d ctx)/*-{
@@ -172,7 +357,7 @@ public class GwtPixelData extends PixelData {
                 int egaRGBA8888Colour = egaPaletteImageData.get(agiScreenIndex++);
                 
                 // Look up the new palette equivalent.
-                int newPaletteRGBA8888Colour = egaToPaletteMap.getOrDefault(egaRGBA8888Colour, egaRGBA8888Colour);
+                int newPaletteRGBA8888Colour = toPaletteColour(egaRGBA8888Colour);
             
                 // Update the pixel to be the equivalent colour from the new palette.
                 pixelArray.set(index, (newPaletteRGBA8888Colour >> 24) & 0xFF);
@@ -181,5 +366,7 @@ public class GwtPixelData extends PixelData {
                 pixelArray.set(index + 3, newPaletteRGBA8888Colour & 0xFF);
             }
         }
+        
+        dirty = true;
     }
 }
\ No newline at end of file
@@ -87,21 +87,24 @@ public class GwtUserInput extends UserInput {
     }
 
     @Override
-    protected Integer keyPressQueuePoll() {
+    protected int keyPressQueuePoll() {
         int keyCode = keyPressQueue.poll();
-        // We don't appear to be able to use a return type of Integer for the native
-        // JS poll method, as that leads to unpredictable behaviour, e.g. it mysteriously
-        // becomes undefined when it should contain a number. For that reason, we use -1
-        // to indicate absence of a waiting key and convert that to null to match what
-        // the other platforms are doing.
-        return (keyCode == -1? null : keyCode);
+        // The native JS poll method uses -1 to indicate absence of a waiting key, so we
+        // convert that to 0 to match what the other platforms are doing.
+        return (keyCode == -1? 0 : keyCode);
     }
 
     @Override
-    protected boolean keyPressQueueAdd(Integer key) {
+    protected boolean keyPressQueueAdd(int key) {
         return keyPressQueue.add(key);
     }
     
+    @Override
+    protected void waitForKeyPress(int timeoutMillis) {
+        // Uses Atomics.wait, which is allowed in the web worker that runs the Interpreter.
+        keyPressQueue.waitForData(timeoutMillis);
+    }
+    
     /**
      * Gets the SharedArrayBuffer that the key press queue is using internally for
      * storage.
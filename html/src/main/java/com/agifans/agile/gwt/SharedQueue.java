@@ -52,6 +52,8 @@ public class SharedQueue {
         this._capacity = (sab.byteLength - 8) / BYTES_PER_ELEMENT;
         this.buf = sab;
         this.write_ptr = new Uint32Array(this.buf, 0, 1);
+        // Atomics.wait and Atomics.notify only work on an Int32Array.
+        this.write_signal = new Int32Array(this.buf, 0, 1);
         this.read_ptr = new Uint32Array(this.buf, 4, 1);
         this.storage = new Uint32Array(this.buf, 8, this._capacity);
     }-*/;
@@ -105,6 +107,9 @@ public class SharedQueue {
             0,
             (wr + to_write) % (this.@com.agifans.agile.gwt.SharedQueue::_storage_capacity()())
         );
+        
+        // wake up the other side if it is waiting for data
+        Atomics.notify(this.write_signal, 0);
 
         return true;
     }-*/;
@@ -146,6 +151,22 @@ public class SharedQueue {
         return elements[0];
     }-*/;
     
+    /**
+     * Blocks until this queue contains at least one element, or until the given timeout
+     * expires. Uses Atomics.wait, so must not be called from the browser's UI thread.
+     * 
+     * @param timeoutMillis The maximum number of milliseconds to wait, or 0 to wait until there is an element.
+     */
+    public native void waitForData(int timeoutMillis)/*-{
+        var rd = Atomics.load(this.read_ptr, 0);
+        var wr = Atomics.load(this.write_signal, 0);
+
+        if (wr === rd) {
+            // Returns immediately if the write pointer has moved since it was loaded above.
+            Atomics.wait(this.write_signal, 0, wr, (timeoutMillis > 0? timeoutMillis : Infinity));
+        }
+    }-*/;
+    
     /**
      * Returns {@code true} if this queue contains no elements.
      * 
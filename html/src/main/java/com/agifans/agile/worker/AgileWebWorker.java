@@ -56,6 +56,13 @@ import com.google.gwt.webworker.client.DedicatedWorkerEntryPoint;
  */
 public class AgileWebWorker extends DedicatedWorkerEntryPoint implements MessageHandler {
 
+    /**
+     * The number of bytes that the decoded game resources are kept within. A browser, and
+     * particularly a mobile browser, gives a web worker much less memory than a desktop 
+     * JVM, so resources that the current room hasn't loaded are evicted beyond this.
+     */
+    private static final int RESOURCE_MEMORY_BUDGET = 16 * 1024 * 1024;
+
     private DedicatedWorkerGlobalScope scope;
     
     // The web worker has its own instance of each of these. It is not the same instance
@@ -123,6 +130,7 @@ public class AgileWebWorker extends DedicatedWorkerEntryPoint implements Message
                 GameFileMapEncoder gameFileMapDecoder = new GameFileMapEncoder();
                 gameLoader = new GwtGameLoader(pixelData);
                 Game game = gameLoader.loadGame(gameFileMapDecoder.decodeGameFileMap(gameDataBuffer));
+                game.setMemoryBudget(RESOURCE_MEMORY_BUDGET);
                 savedGameStore.initialise(game.gameId);
                 interpreter = new Interpreter(
                         game, userInput, wavePlayer, savedGameStore, 
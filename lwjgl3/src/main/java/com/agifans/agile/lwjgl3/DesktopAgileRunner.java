@@ -1,12 +1,21 @@
 package com.agifans.agile.lwjgl3;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.Normalizer;
 import java.text.Normalizer.Form;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import com.agifans.agile.Agile;
 import com.agifans.agile.AgileRunner;
+import com.agifans.agile.CommandProfiler;
+import com.agifans.agile.InputRecording;
 import com.agifans.agile.Interpreter;
 import com.agifans.agile.PixelData;
 import com.agifans.agile.QuitAction;
@@ -23,17 +32,123 @@ import com.badlogic.gdx.graphics.PixmapIO;
 
 public class DesktopAgileRunner extends AgileRunner {
     
-    private Thread interpreterThread;
+    /**
+     * The maximum number of pending ticks that the Interpreter will catch up on in one go,
+     * i.e. one tenth of a second. Any more than this were requested while the Interpreter
+     * was blocked for a long time, such as while waiting for a key, and are discarded.
+     */
+    private static final int MAX_CATCH_UP_TICKS = 6;
     
-    private boolean exit;
+    private volatile Thread interpreterThread;
+    
+    private volatile boolean exit;
+    
+    /**
+     * The number of ticks requested by the UI thread that the Interpreter thread hasn't 
+     * yet picked up. The UI thread increments this and unparks the Interpreter thread if
+     * it was zero. The Interpreter thread takes all of them at once, and parks when there
+     * are none, so a tick request is never lost and no monitor is needed.
+     */
+    private final AtomicInteger pendingTicks = new AtomicInteger();
+    
+    /**
+     * The number of ticks that the UI thread has requested.
+     */
+    private final AtomicLong requestedTicks = new AtomicLong();
+    
+    /**
+     * The number of ticks that the Interpreter has run.
+     */
+    private final AtomicLong executedTicks = new AtomicLong();
+    
+    /**
+     * The number of ticks that were requested while the Interpreter was still busy, and 
+     * so were run back-to-back after it became free.
+     */
+    private final AtomicLong coalescedTicks = new AtomicLong();
+    
+    /**
+     * The number of ticks that were discarded because more than MAX_CATCH_UP_TICKS were
+     * pending when the Interpreter became free.
+     */
+    private final AtomicLong missedTicks = new AtomicLong();
+    
+    /**
+     * If set, the path of the file to write an InputRecording of each game session to.
+     */
+    private String recordingFile;
+    
+    /**
+     * If set, the path of the file to write the CommandProfiler results to when the game exits.
+     */
+    private String profileFile;
     
     public DesktopAgileRunner(UserInput userInput, WavePlayer wavePlayer, 
             SavedGameStore savedGameStore, PixelData pixelData, VariableData variableData) {
         super(userInput, wavePlayer, savedGameStore, pixelData, variableData);
     }
+    
+    /**
+     * Sets the path of the file to write an InputRecording of each game session to, so
+     * that the session can later be replayed by the HeadlessAgileRunner.
+     * 
+     * @param recordingFile The path of the recording file.
+     */
+    public void setRecordingFile(String recordingFile) {
+        this.recordingFile = recordingFile;
+    }
+    
+    /**
+     * Sets the path of the file to write the AGI command profile to when the game exits.
+     * The profile is written as JSON if the file name ends with .json, otherwise as CSV.
+     * 
+     * @param profileFile The path of the profile file.
+     */
+    public void setProfileFile(String profileFile) {
+        this.profileFile = profileFile;
+    }
+
+    /**
+     * Gets the number of ticks that the UI thread has requested.
+     * 
+     * @return The number of ticks requested.
+     */
+    public long getRequestedTicks() {
+        return requestedTicks.get();
+    }
+    
+    /**
+     * Gets the number of ticks that the Interpreter has run.
+     * 
+     * @return The number of ticks run.
+     */
+    public long getExecutedTicks() {
+        return executedTicks.get();
+    }
+    
+    /**
+     * Gets the number of ticks that were requested while the Interpreter was busy, and
+     * that it then caught up on by running them back-to-back.
+     * 
+     * @return The number of coalesced ticks.
+     */
+    public long getCoalescedTicks() {
+        return coalescedTicks.get();
+    }
+    
+    /**
+     * Gets the number of ticks that were discarded because the Interpreter was blocked 
+     * for longer than it is allowed to catch up on.
+     * 
+     * @return The number of missed ticks.
+     */
+    public long getMissedTicks() {
+        return missedTicks.get();
+    }
 
     @Override
     public void start(AppConfigItem appConfigItem) {
+        pendingTicks.set(0);
         interpreterThread = new Thread(new Runnable() {
             @Override
             public void run() {
@@ -45,8 +160,12 @@ public class DesktopAgileRunner extends AgileRunner {
     
     @Override
     public void animationTick() {
-        synchronized (this) {
-            notify();
+        requestedTicks.incrementAndGet();
+        
+        // Only the first pending tick needs to wake the Interpreter thread, as it takes all
+        // of the pending ticks before it parks again.
+        if (pendingTicks.getAndIncrement() == 0) {
+            LockSupport.unpark(interpreterThread);
         }
     }
 
@@ -65,9 +184,29 @@ public class DesktopAgileRunner extends AgileRunner {
         Interpreter interpreter = new Interpreter(game, userInput, wavePlayer, 
                 savedGameStore, pixelData, variableData);
         
+        // The game's resources are decoded as they're needed, and in the idle ticks.
+        interpreter.setPrefetchResources(true);
+        
+        if (recordingFile != null) {
+            // Seed the random number generator with a known value so that replay is exact.
+            long seed = System.currentTimeMillis();
+            interpreter.setRandomSeed(seed);
+            setInputRecording(new InputRecording(seed));
+        }
+        
+        CommandProfiler profiler = null;
+        if (profileFile != null) {
+            profiler = new CommandProfiler();
+            interpreter.setCommandProfiler(profiler);
+        }
+        
         while (true) {
             if (exit) {
                 // Returning from the method will stop the thread cleanly.
+                saveInputRecording();
+                if (profiler != null) {
+                    writeProfile(profileFile, profiler);
+                }
                 pixelData.clearState();
                 variableData.clearState();
                 wavePlayer.reset();
@@ -75,31 +214,70 @@ public class DesktopAgileRunner extends AgileRunner {
             }
             
             try {
-                // Wait for the UI thread to notify us to perform an animation tick.
-                synchronized (this) {
-                    wait();
+                // Take all of the ticks that the UI thread has requested so far, or park 
+                // until it requests one. Spurious wake ups simply go around the loop again.
+                int ticks = pendingTicks.getAndSet(0);
+                if (ticks == 0) {
+                    LockSupport.park(this);
+                    continue;
                 }
                 
-                // Perform one animation tick of the AGI interpreter.
-                interpreter.animationTick();
+                if (ticks > MAX_CATCH_UP_TICKS) {
+                    missedTicks.addAndGet(ticks - MAX_CATCH_UP_TICKS);
+                    ticks = MAX_CATCH_UP_TICKS;
+                }
+                if (ticks > 1) {
+                    coalescedTicks.addAndGet(ticks - 1);
+                }
+                
+                // Perform the animation ticks of the AGI interpreter.
+                for (int i = 0; (i < ticks) && !exit; i++) {
+                    interpreter.animationTick();
+                    executedTicks.incrementAndGet();
+                }
             }
             catch (QuitAction qa) {
                 // QuitAction is thrown when the AGI quit() command is executed.
                 exit = true;
             }
-            catch (InterruptedException e) {
-                // Nothing to do.
+        }
+    }
+    
+    private void saveInputRecording() {
+        if (inputRecording != null) {
+            InputRecording recording = inputRecording;
+            setInputRecording(null);
+            try {
+                Files.write(Paths.get(recordingFile), recording.toBytes());
+            } catch (IOException e) {
+                System.err.println("Failed to write input recording: " + e.getMessage());
             }
         }
     }
     
+    /**
+     * Writes the results of the given CommandProfiler to the given file, as JSON if the 
+     * file name ends with .json, otherwise as CSV.
+     * 
+     * @param profileFile The path of the file to write the profile to.
+     * @param profiler The CommandProfiler holding the results.
+     */
+    static void writeProfile(String profileFile, CommandProfiler profiler) {
+        String profile = (profileFile.toLowerCase().endsWith(".json")? profiler.toJSON() : profiler.toCSV());
+        try {
+            Files.write(Paths.get(profileFile), profile.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Failed to write command profile: " + e.getMessage());
+        }
+    }
+    
     @Override
     public void stop() {
         exit = true;
         
         if ((interpreterThread != null) && interpreterThread.isAlive()) {
-            // If the thread is still running, and is either waiting on the wait() above,
-            // or it is sleeping within the UserInput or TextGraphics classes, then this
+            // If the thread is still running, and is either parked in the loop above,
+            // or it is waiting for a key press within the UserInput class, then this
             // interrupt call will wake it up, the QuitAction will be thrown, and then the
             // thread will cleanly and safely stop.
             interpreterThread.interrupt();
@@ -240,7 +240,7 @@ public class DesktopDialogHandler implements DialogHandler {
             gameFilesMap.containsKey("object")) {
             // Seems to be an AGI game directory. Let's try to decode it.
             try {
-                return new Game(gameFilesMap);
+                return new Game(gameFilesMap, true);
             } catch (RuntimeException e) {
                 // Decode failed, so can't be run by AGILE.
                 showMessageDialog("AGILE is unable to run the selected game. Please try another one.");
@@ -1,49 +1,147 @@
 package com.agifans.agile.lwjgl3;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.agifans.agile.DirtyTiles;
+import com.agifans.agile.IndexedPalette;
 import com.agifans.agile.PixelData;
 import com.badlogic.gdx.graphics.Pixmap;
-import com.badlogic.gdx.utils.BufferUtils;
 
 /**
  * Desktop implementation of the PixelData interface.
+ * 
+ * The Interpreter thread draws in to an array of palette indexes. When it publishes a 
+ * frame, the changed tiles are converted to RGBA8888 and written in to one of three direct
+ * ByteBuffers, which the UI thread can then upload straight to the GPU without any further
+ * copying. The three buffers are the one that the Interpreter thread is writing to, the 
+ * most recently published one, and the one that the UI thread is uploading from. Buffers 
+ * are handed over by atomically swapping their index with the published one, so neither
+ * thread ever waits for the other, and the UI thread never sees a partially drawn frame.
  */
-public class DesktopPixelData extends PixelData {
-
-    // This byte array is in exactly the format that we can copy into the Pixmap's buffer.
-    private byte[] imageData;
-    
-    private byte[] backupImageData;
-    
-    private int[] egaPaletteImageData;
-    
-    private int[] backupEgaPaletteImageData;
-    
+public class DesktopPixelData extends PixelData implements DirtyTiles.RunHandler {
+
+    /**
+     * Flag set in the publishedBuffer value when the UI thread hasn't yet acquired it.
+     */
+    private static final int FRESH = 0x04;
+
+    /**
+     * Mask for the buffer index in the publishedBuffer value.
+     */
+    private static final int BUFFER_MASK = 0x03;
+
+    /**
+     * The palette index of each pixel. The RGBA8888 colours are only looked up when a 
+     * frame is published, which means that a palette change is applied by updating the
+     * palette rather than by rewriting every pixel.
+     */
+    private short[] indexData;
+
+    private short[] backupIndexData;
+
+    /**
+     * The width of the pixel data, i.e. the distance between rows.
+     */
+    private int width;
+
+    /**
+     * The palette that maps between the palette indexes and RGBA8888 colours.
+     */
+    private IndexedPalette palette;
+
+    /**
+     * The three frame buffers, in R, G, B, A byte order.
+     */
+    private ByteBuffer[] frameBuffers;
+
+    /**
+     * An int view of each of the frame buffers, used to write whole pixels.
+     */
+    private IntBuffer[] frameInts;
+
+    /**
+     * For each frame buffer, the tiles that changed between the frame in the buffer and 
+     * the frame that the UI thread last acquired. Written by the Interpreter thread only
+     * while it owns the buffer.
+     */
+    private DirtyTiles[] frameTiles;
+
+    /**
+     * For each frame buffer, the tiles that have changed since the buffer was last drawn.
+     * Only used by the Interpreter thread.
+     */
+    private DirtyTiles[] staleTiles;
+
+    /**
+     * The index of the frame buffer that the Interpreter thread is writing to.
+     */
+    private int backBuffer;
+
+    /**
+     * The index of the frame buffer that the UI thread is uploading from.
+     */
+    private int frontBuffer;
+
+    /**
+     * The index of the most recently published frame buffer, plus the FRESH flag if the UI 
+     * thread hasn't acquired it yet.
+     */
+    private AtomicInteger publishedBuffer;
+
+    /**
+     * The int view of the frame buffer currently being drawn by publishFrame.
+     */
+    private IntBuffer drawInts;
+
+    /**
+     * The tiles of the screen that have changed since the last frame was published.
+     */
+    private DirtyTiles dirtyTiles;
+
+    /**
+     * Whether any pixels have changed since the last frame was published.
+     */
+    private boolean dirty;
+
     @Override
     public void init(int width, int height) {
-        imageData = new byte[width * height * 4];
-        backupImageData = new byte[width * height * 4];
-        egaPaletteImageData = new int[width * height];
-        backupEgaPaletteImageData = new int[width * height];
+        this.width = width;
+        indexData = new short[width * height];
+        backupIndexData = new short[width * height];
+        palette = new IndexedPalette();
+        dirtyTiles = new DirtyTiles(width, height);
+        frameBuffers = new ByteBuffer[3];
+        frameInts = new IntBuffer[3];
+        frameTiles = new DirtyTiles[3];
+        staleTiles = new DirtyTiles[3];
+        for (int i = 0; i < 3; i++) {
+            frameBuffers[i] = ByteBuffer.allocateDirect(width * height * 4);
+            frameInts[i] = frameBuffers[i].duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+            frameTiles[i] = new DirtyTiles(width, height);
+            staleTiles[i] = new DirtyTiles(width, height);
+        }
+        backBuffer = 0;
+        publishedBuffer = new AtomicInteger(1);
+        frontBuffer = 2;
+    }
+
+    @Override
+    public void clearState() {
+        super.clearState();
+        updatePixelsForNewPalette();
     }
 
     @Override
     public void putPixel(int agiScreenIndex, int rgba8888Colour) {
         try {
-            // Store original colour in EGA palette version of screen.
-            egaPaletteImageData[agiScreenIndex] = rgba8888Colour;
-            
-            // All incoming RGBA8888 colours are from EGA palette, so convert to custom palette.
-            int paletteColour = egaToPaletteMap.getOrDefault(rgba8888Colour, rgba8888Colour);
-            
-            int index = agiScreenIndex * 4;
-            
-            // Adds RGBA8888 colour to byte array in expected R, G, B, A order.
-            imageData[index + 0] = (byte)((paletteColour >> 24) & 0xFF);
-            imageData[index + 1] = (byte)((paletteColour >> 16) & 0xFF);
-            imageData[index + 2] = (byte)((paletteColour >>  8) & 0xFF);
-            imageData[index + 3] = (byte)((paletteColour >>  0) & 0xFF);
+            indexData[agiScreenIndex] = (short)palette.indexOf(rgba8888Colour);
+
+            dirtyTiles.markPixel(agiScreenIndex);
+            dirty = true;
         } catch (ArrayIndexOutOfBoundsException e) {
             // Ignore. Some AGI fanmade games write things outside the screen, for
             // example, the "Sarien" demo. We ignore any such attempts.
@@ -52,74 +150,190 @@ public class DesktopPixelData extends PixelData {
 
     @Override
     public void pixelCopy(int[] src, int agiScreenIndex, int agiScreenLength) {
-        int index = agiScreenIndex * 4;
-        for (int srcPos = 0; srcPos < agiScreenLength; srcPos++) {
+        copyRun(src, 0, agiScreenIndex, agiScreenLength);
+
+        if (agiScreenLength > 0) {
+            dirtyTiles.markRange(agiScreenIndex, agiScreenLength);
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void copyPixels(int[] src, int srcPos, int srcStride, int agiScreenIndex, int width, int height) {
+        for (int y = 0; y < height; y++, srcPos += srcStride, agiScreenIndex += this.width) {
+            if ((agiScreenIndex >= 0) && ((agiScreenIndex + width) <= indexData.length)) {
+                copyRun(src, srcPos, agiScreenIndex, width);
+                dirtyTiles.markRange(agiScreenIndex, width);
+            }
+        }
+
+        if ((width > 0) && (height > 0)) {
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void stretchPixels(int[] src, int srcPos, int srcStride, int agiScreenIndex, int width, int height) {
+        for (int y = 0; y < height; y++, srcPos += srcStride, agiScreenIndex += this.width) {
+            if ((agiScreenIndex >= 0) && ((agiScreenIndex + (width * 2)) <= indexData.length)) {
+                int lastColour = 0;
+                short lastIndex = IndexedPalette.CLEAR;
+                for (int x = 0, index = agiScreenIndex; x < width; x++) {
+                    int rgba8888Colour = src[srcPos + x];
+                    if (rgba8888Colour != lastColour) {
+                        lastColour = rgba8888Colour;
+                        lastIndex = (short)palette.indexOf(rgba8888Colour);
+                    }
+                    indexData[index++] = lastIndex;
+                    indexData[index++] = lastIndex;
+                }
+                dirtyTiles.markRange(agiScreenIndex, width * 2);
+            }
+        }
+
+        if ((width > 0) && (height > 0)) {
+            dirty = true;
+        }
+    }
+
+    private void copyRun(int[] src, int srcPos, int agiScreenIndex, int agiScreenLength) {
+        int lastColour = 0;
+        short lastIndex = IndexedPalette.CLEAR;
+        for (int endIndex = agiScreenIndex + agiScreenLength; agiScreenIndex < endIndex; agiScreenIndex++) {
             // The src with be in the EGA palette. All incoming external colours are.
-            int rgba8888Colour = src[srcPos];
-            
-            // Store original colour in EGA palette version of screen.
-            egaPaletteImageData[agiScreenIndex++] = rgba8888Colour;
-            
-            // Convert to palette colour.
-            int paletteColour = egaToPaletteMap.getOrDefault(rgba8888Colour, rgba8888Colour);
-            
-            imageData[index++] = (byte)((paletteColour >> 24) & 0xFF);
-            imageData[index++] = (byte)((paletteColour >> 16) & 0xFF);
-            imageData[index++] = (byte)((paletteColour >>  8) & 0xFF);
-            imageData[index++] = (byte)((paletteColour >>  0) & 0xFF);
+            int rgba8888Colour = src[srcPos++];
+
+            // Runs of the same colour are common, so avoid repeating the palette lookup.
+            if (rgba8888Colour != lastColour) {
+                lastColour = rgba8888Colour;
+                lastIndex = (short)palette.indexOf(rgba8888Colour);
+            }
+
+            indexData[agiScreenIndex] = lastIndex;
         }
     }
-    
+
+    @Override
+    public void fillPixels(int agiScreenIndex, int agiScreenLength, int rgba8888Colour) {
+        int fromIndex = Math.max(agiScreenIndex, 0);
+        int toIndex = Math.min(agiScreenIndex + agiScreenLength, indexData.length);
+        if (fromIndex < toIndex) {
+            Arrays.fill(indexData, fromIndex, toIndex, (short)palette.indexOf(rgba8888Colour));
+            dirtyTiles.markRange(fromIndex, toIndex - fromIndex);
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void drawGlyph(int[] glyphData, int glyphPos, int agiScreenIndex, int foregroundRGBA8888, int backgroundRGBA8888, boolean halfTone) {
+        short foregroundIndex = (short)palette.indexOf(foregroundRGBA8888);
+        short backgroundIndex = (short)palette.indexOf(backgroundRGBA8888);
+        for (int row = 0; row < 8; row++, agiScreenIndex += width) {
+            if ((agiScreenIndex >= 0) && ((agiScreenIndex + 8) <= indexData.length)) {
+                int glyphByte = (glyphData[glyphPos + row] & 0xFF);
+                int mask = glyphRowMask(row, halfTone);
+                for (int bit = 0x80, index = agiScreenIndex; bit != 0; bit >>= 1, index++) {
+                    if ((mask & bit) != 0) {
+                        indexData[index] = ((glyphByte & bit) != 0? foregroundIndex : backgroundIndex);
+                    }
+                }
+                dirtyTiles.markRange(agiScreenIndex, 8);
+            }
+        }
+        dirty = true;
+    }
+
     @Override
     public void savePixels() {
-        System.arraycopy(imageData, 0, backupImageData, 0, imageData.length);
-        System.arraycopy(egaPaletteImageData, 0, backupEgaPaletteImageData, 0, egaPaletteImageData.length);
+        System.arraycopy(indexData, 0, backupIndexData, 0, indexData.length);
     }
 
     @Override
     public void restorePixels() {
-        System.arraycopy(backupImageData, 0, imageData, 0, backupImageData.length);
-        System.arraycopy(backupEgaPaletteImageData, 0, egaPaletteImageData, 0, backupEgaPaletteImageData.length);
+        System.arraycopy(backupIndexData, 0, indexData, 0, backupIndexData.length);
+        dirtyTiles.markAll();
+        dirty = true;
     }
 
     @Override
     public void clearPixels() {
-        Arrays.fill(imageData, (byte)0);
-        Arrays.fill(backupImageData, (byte)0);
-        Arrays.fill(egaPaletteImageData, (byte)0);
-        Arrays.fill(backupEgaPaletteImageData, (byte)0);
+        Arrays.fill(indexData, (short)IndexedPalette.CLEAR);
+        Arrays.fill(backupIndexData, (short)IndexedPalette.CLEAR);
+        dirtyTiles.markAll();
+        dirty = true;
     }
-    
+
     @Override
     public int getPixel(int agiScreenIndex) {
-        return egaPaletteImageData[agiScreenIndex];
+        return palette.getSourceColour(indexData[agiScreenIndex]);
     }
 
     @Override
     public int getBackupPixel(int agiScreenIndex) {
-        return backupEgaPaletteImageData[agiScreenIndex];
+        return palette.getSourceColour(backupIndexData[agiScreenIndex]);
     }
 
     @Override
-    public void updatePixmap(Pixmap pixmap) {
-        BufferUtils.copy(imageData, 0, pixmap.getPixels(), imageData.length);
+    public void publishFrame() {
+        if (!dirty) {
+            return;
+        }
+
+        // Bring the back buffer up to date, by drawing every tile that has changed since it
+        // was last drawn, and remember which tiles changed in this frame.
+        for (DirtyTiles tiles : staleTiles) {
+            tiles.addAll(dirtyTiles);
+        }
+        drawInts = frameInts[backBuffer];
+        staleTiles[backBuffer].take(null, this);
+        DirtyTiles changedTiles = frameTiles[backBuffer];
+        changedTiles.clear();
+        changedTiles.addAll(dirtyTiles);
+        dirtyTiles.clear();
+        dirty = false;
+
+        // If the UI thread hasn't acquired the previous frame, it will skip it, so the
+        // tiles that changed in that frame must be uploaded with this one.
+        int previous = publishedBuffer.get();
+        if ((previous & FRESH) != 0) {
+            changedTiles.addAll(frameTiles[previous & BUFFER_MASK]);
+        }
+
+        backBuffer = (publishedBuffer.getAndSet(backBuffer | FRESH) & BUFFER_MASK);
     }
 
     @Override
-    protected void updatePixelsForNewPalette() {
-        for (byte[] imageData : new byte[][] { this.imageData, this.backupImageData }) {
-            for (int index=0, agiScreenIndex=0; index < imageData.length; index += 4) {
-                int egaRGBA8888Colour = egaPaletteImageData[agiScreenIndex++];
-                
-                // Look up the new palette equivalent.
-                int newPaletteRGBA8888Colour = egaToPaletteMap.getOrDefault(egaRGBA8888Colour, egaRGBA8888Colour);
-            
-                // Update the pixel to be the equivalent colour from the new palette.
-                imageData[index + 0] = (byte)((newPaletteRGBA8888Colour >> 24) & 0xFF);
-                imageData[index + 1] = (byte)((newPaletteRGBA8888Colour >> 16) & 0xFF);
-                imageData[index + 2] = (byte)((newPaletteRGBA8888Colour >>  8) & 0xFF);
-                imageData[index + 3] = (byte)((newPaletteRGBA8888Colour >>  0) & 0xFF);
-            }
+    public void handleRun(int agiScreenIndex, int agiScreenLength) {
+        // Converts the palette indexes to RGBA8888 colours as they're written to the frame buffer.
+        int endIndex = agiScreenIndex + agiScreenLength;
+        for (int index = agiScreenIndex; index < endIndex; index++) {
+            drawInts.put(index, palette.getColour(indexData[index]));
+        }
+    }
+
+    @Override
+    public boolean acquireFrame(Pixmap pixmap, DirtyTiles updatedTiles) {
+        if ((publishedBuffer.get() & FRESH) == 0) {
+            return false;
         }
+        
+        // The published frame is acquired by swapping it for the one the UI thread had. The
+        // Pixmap isn't needed, as the frame buffers are uploaded directly.
+        frontBuffer = (publishedBuffer.getAndSet(frontBuffer) & BUFFER_MASK);
+        updatedTiles.addAll(frameTiles[frontBuffer]);
+        return true;
+    }
+
+    @Override
+    public ByteBuffer getFramePixels() {
+        return frameBuffers[frontBuffer];
+    }
+
+    @Override
+    protected void updatePixelsForNewPalette() {
+        palette.setEgaColours(paletteColours);
+
+        dirtyTiles.markAll();
+        dirty = true;
     }
 }
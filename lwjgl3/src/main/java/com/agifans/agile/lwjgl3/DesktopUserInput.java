@@ -66,16 +66,28 @@ public class DesktopUserInput extends UserInput {
     }
     
     @Override
-    protected Integer keyPressQueuePoll() {
+    protected int keyPressQueuePoll() {
         synchronized (keyPressQueue) {
-            return keyPressQueue.poll();
+            Integer key = keyPressQueue.poll();
+            return (key != null? key : 0);
         }
     }
     
     @Override
-    protected boolean keyPressQueueAdd(Integer key) {
+    protected boolean keyPressQueueAdd(int key) {
         synchronized (keyPressQueue) {
-            return keyPressQueue.add(key);
+            boolean added = keyPressQueue.add(key);
+            keyPressQueue.notifyAll();
+            return added;
+        }
+    }
+    
+    @Override
+    protected void waitForKeyPress(int timeoutMillis) throws InterruptedException {
+        synchronized (keyPressQueue) {
+            if (keyPressQueue.isEmpty()) {
+                keyPressQueue.wait(timeoutMillis);
+            }
         }
     }
 }
@@ -0,0 +1,427 @@
+package com.agifans.agile.lwjgl3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+
+import com.agifans.agile.Agile;
+import com.agifans.agile.AgileRunner;
+import com.agifans.agile.CommandProfiler;
+import com.agifans.agile.InputRecording;
+import com.agifans.agile.Interpreter;
+import com.agifans.agile.QuitAction;
+import com.agifans.agile.agilib.Game;
+import com.agifans.agile.config.AppConfigItem;
+import com.badlogic.gdx.graphics.Pixmap;
+
+/**
+ * An AgileRunner that runs an AGI game without any libGDX application, graphics or
+ * GameScreen, and drives the Interpreter's ticks back-to-back as fast as the CPU allows.
+ * Time is virtual: each tick advances the AGI total ticks and game clock exactly as if
+ * 1/60th of a second had passed, so that whole games can be run through in seconds for
+ * regression and soak testing.
+ *
+ * As with the DesktopAgileRunner, the Interpreter runs in its own thread. This is so that
+ * when the Interpreter is blocked waiting for something, such as a key press or a print
+ * window timeout, the virtual clock keeps running, just like it does in real time. The two
+ * threads never run at the same time though. The Interpreter thread hands control back to
+ * the driving thread whenever it completes a tick, and also, via the HeadlessUserInput, for
+ * every virtual tick that it spends blocked. Ticks requested while the Interpreter is blocked
+ * are dropped, as they are on the other platforms. This means that the ticks on which 
+ * things happen depend only on the game, the seed and the recorded input.
+ *
+ * The GameState's random number generator is always seeded, and an InputRecording can be
+ * replayed tick-for-tick, so that the same workload can be run again and again. A checksum
+ * of the visual pixels can be taken every N ticks to verify that the runs are identical.
+ */
+public class HeadlessAgileRunner extends AgileRunner {
+
+    /**
+     * Width and height of the AGI screen pixel data.
+     */
+    private static final int AGI_SCREEN_WIDTH = 320;
+    private static final int AGI_SCREEN_HEIGHT = 200;
+
+    private Thread interpreterThread;
+
+    private Interpreter interpreter;
+
+    /**
+     * Released by the driving thread to ask the Interpreter thread to perform a tick, or to
+     * let it know that the next virtual tick has started if it is blocked.
+     */
+    private Semaphore tickRequested;
+
+    /**
+     * Released by the Interpreter thread when it has completed a tick, or when it is blocked
+     * and has finished with the current virtual tick.
+     */
+    private Semaphore tickCompleted;
+
+    private volatile boolean exit;
+
+    /**
+     * The number of virtual ticks that have been run, i.e. the number of 1/60ths of a second.
+     */
+    private long totalTicksRun;
+
+    /**
+     * The number of ticks that the Interpreter actually performed, i.e. excluding those dropped
+     * while it was blocked waiting for something.
+     */
+    private volatile long interpreterTicksRun;
+
+    /**
+     * The InputRecording to replay, if any.
+     */
+    private InputRecording replayRecording;
+
+    /**
+     * The number of ticks between each visual pixels checksum, or 0 for no checksums.
+     */
+    private int checksumInterval;
+
+    /**
+     * The visual pixels checksums taken so far, one every checksumInterval ticks.
+     */
+    private List<Long> checksums;
+
+    /**
+     * Constructor for HeadlessAgileRunner.
+     */
+    public HeadlessAgileRunner() {
+        super(new HeadlessUserInput(), new HeadlessWavePlayer(), new DesktopSavedGameStore(),
+                new DesktopPixelData(), new DesktopVariableData());
+        ((HeadlessUserInput)this.userInput).setRunner(this);
+        this.pixelData.init(AGI_SCREEN_WIDTH, AGI_SCREEN_HEIGHT);
+        this.checksums = new ArrayList<>();
+    }
+
+    /**
+     * Sets the InputRecording to replay. Must be set before the game is started, as the
+     * recording's random seed is applied when the Interpreter is created.
+     *
+     * @param replayRecording The InputRecording to replay.
+     */
+    public void setReplayRecording(InputRecording replayRecording) {
+        this.replayRecording = replayRecording;
+    }
+
+    /**
+     * Sets the number of ticks between each checksum of the visual pixels.
+     *
+     * @param checksumInterval The number of ticks between checksums, or 0 for none.
+     */
+    public void setChecksumInterval(int checksumInterval) {
+        this.checksumInterval = checksumInterval;
+    }
+
+    /**
+     * Sets the CommandProfiler that will collect execution counts and times for each AGI
+     * command and Logic. Must be set after the game is started.
+     *
+     * @param profiler The CommandProfiler, or null to turn profiling off.
+     */
+    public void setCommandProfiler(CommandProfiler profiler) {
+        interpreter.setCommandProfiler(profiler);
+    }
+
+    /**
+     * Gets the visual pixels checksums that have been taken so far.
+     *
+     * @return The List of checksums, the first being for tick checksumInterval, and so on.
+     */
+    public List<Long> getChecksums() {
+        return checksums;
+    }
+
+    @Override
+    public void start(AppConfigItem appConfigItem) {
+        start(appConfigItem.getFilePath());
+    }
+
+    /**
+     * Loads the AGI game at the given URI and starts the Interpreter thread. The thread
+     * then waits for ticks to be requested via runTicks.
+     *
+     * @param gameUri The path of the AGI game folder or ZIP file.
+     */
+    public void start(String gameUri) {
+        DesktopGameLoader gameLoader = new DesktopGameLoader(pixelData);
+        Map<String, byte[]> gameFilesMap = new HashMap<>();
+        gameLoader.fetchGameFiles(gameUri, map -> gameFilesMap.putAll(map));
+        Game game = gameLoader.loadGame(gameFilesMap);
+
+        interpreter = new Interpreter(game, userInput, wavePlayer,
+                savedGameStore, pixelData, variableData);
+
+        // Random decisions must be the same on every run, so that the workload is the same.
+        interpreter.setRandomSeed(replayRecording != null? replayRecording.getSeed() : 0);
+
+        exit = false;
+        tickRequested = new Semaphore(0);
+        tickCompleted = new Semaphore(0);
+        interpreterThread = new Thread(this::runInterpreter, "AGILE Headless Interpreter");
+        interpreterThread.start();
+    }
+
+    /**
+     * The main loop of the Interpreter thread. Performs a single Interpreter tick every
+     * time one is requested.
+     */
+    private void runInterpreter() {
+        try {
+            while (!exit) {
+                tickRequested.acquire();
+                interpreter.animationTick();
+                interpreterTicksRun++;
+                tickCompleted.release();
+            }
+        }
+        catch (QuitAction qa) {
+            // QuitAction is thrown when the AGI quit() command is executed.
+        }
+        catch (InterruptedException e) {
+            // Interrupt indicates that the runner is being stopped.
+        }
+        finally {
+            exit = true;
+            tickCompleted.release();
+        }
+    }
+
+    /**
+     * Runs the given number of virtual ticks back-to-back, or until the game quits.
+     *
+     * @param numOfTicks The number of ticks to run.
+     *
+     * @return The number of ticks that were run.
+     */
+    public long runTicks(long numOfTicks) {
+        long ticksRun = 0;
+
+        while ((ticksRun < numOfTicks) && !exit) {
+            // Advance the virtual clock by one tick, feed in any recorded input for that
+            // tick, and then ask the Interpreter to run it.
+            incrementTotalTicks();
+            if (replayRecording != null) {
+                replayRecording.replay(variableData.getTotalTicks(), userInput, variableData);
+            }
+            animationTick();
+            ((HeadlessWavePlayer)wavePlayer).update();
+            ticksRun++;
+
+            if ((checksumInterval > 0) && ((variableData.getTotalTicks() % checksumInterval) == 0)) {
+                checksums.add(checksumVisualPixels());
+            }
+        }
+
+        totalTicksRun += ticksRun;
+
+        return ticksRun;
+    }
+
+    @Override
+    public void animationTick() {
+        // If the Interpreter is blocked in an earlier tick, then this lets it check whether 
+        // what it is waiting for has happened yet, and this tick is dropped. Either way, we
+        // wait until it has finished with the tick, so that the clock doesn't move on.
+        tickRequested.release();
+
+        try {
+            tickCompleted.acquire();
+        }
+        catch (InterruptedException e) {
+            exit = true;
+        }
+    }
+
+    /**
+     * Invoked on the Interpreter thread, by the HeadlessUserInput, to let one virtual tick 
+     * pass while the Interpreter is blocked. Control is handed back to the driving thread,
+     * as though the tick had completed, and this method returns when the next tick starts.
+     *
+     * @throws InterruptedException If the runner is being stopped.
+     */
+    void awaitTick() throws InterruptedException {
+        tickCompleted.release();
+        tickRequested.acquire();
+    }
+
+    /**
+     * Calculates a CRC32 checksum of the GameState's visual pixels.
+     *
+     * @return The checksum of the visual pixels.
+     */
+    private long checksumVisualPixels() {
+        // Each pixel is included twice, as they appear on screen, so that the checksums 
+        // match those taken when the visual pixels were stored at the full screen width.
+        int[] visualPixels = interpreter.getState().visualPixels;
+        ByteBuffer buffer = ByteBuffer.allocate(visualPixels.length * 8);
+        IntBuffer intBuffer = buffer.asIntBuffer();
+        for (int rgba8888Colour : visualPixels) {
+            intBuffer.put(rgba8888Colour);
+            intBuffer.put(rgba8888Colour);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * Gets the number of virtual ticks that have been run, i.e. the number of 1/60ths of a second.
+     *
+     * @return The number of virtual ticks that have been run.
+     */
+    public long getTotalTicksRun() {
+        return totalTicksRun;
+    }
+
+    /**
+     * Gets the number of ticks that the Interpreter actually performed, which excludes
+     * those that were dropped while it was blocked waiting for something.
+     *
+     * @return The number of ticks that the Interpreter performed.
+     */
+    public long getInterpreterTicksRun() {
+        return interpreterTicksRun;
+    }
+
+    @Override
+    public void stop() {
+        exit = true;
+
+        if ((interpreterThread != null) && interpreterThread.isAlive()) {
+            interpreterThread.interrupt();
+            try {
+                interpreterThread.join();
+            } catch (InterruptedException e) {
+                // Nothing to do.
+            }
+        }
+
+        pixelData.clearState();
+        variableData.clearState();
+        wavePlayer.reset();
+    }
+
+    @Override
+    public void reset() {
+        exit = false;
+        interpreterThread = null;
+        totalTicksRun = 0;
+        interpreterTicksRun = 0;
+        checksums.clear();
+    }
+
+    @Override
+    public boolean hasStopped() {
+        return ((interpreterThread != null) && !interpreterThread.isAlive());
+    }
+
+    @Override
+    public void saveScreenshot(Agile agile, AppConfigItem appConfigItem, Pixmap pixmap) {
+        // There is no screen to take a shot of.
+    }
+
+    @Override
+    public boolean hasTouchScreen() {
+        return false;
+    }
+
+    @Override
+    public boolean isMobile() {
+        return false;
+    }
+
+    @Override
+    public String slugify(String input) {
+        return input;
+    }
+
+    @Override
+    public void cancelImport() {
+        // Nothing to do.
+    }
+
+    /**
+     * Runs an AGI game headless for a number of virtual ticks and reports the throughput.
+     *
+     * Usage: HeadlessAgileRunner &lt;game folder or zip&gt; [ticks=N] [replay=file] [checksum=N] [profile=file]
+     *
+     * If a replay file is given, the number of ticks defaults to one second more than the
+     * last recorded event; otherwise it defaults to one hour of game time.
+     *
+     * @param args The command line arguments.
+     *
+     * @throws IOException If the replay file can't be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HeadlessAgileRunner <game folder or zip> [ticks=N] [replay=file] [checksum=N] [profile=file]");
+            System.exit(1);
+        }
+
+        Map<String, String> argsMap = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            int equalsIndex = args[i].indexOf('=');
+            if (equalsIndex != -1) {
+                argsMap.put(args[i].substring(0, equalsIndex), args[i].substring(equalsIndex + 1));
+            }
+        }
+
+        HeadlessAgileRunner runner = new HeadlessAgileRunner();
+        long numOfTicks = 60L * 60 * 60;
+        if (argsMap.containsKey("replay")) {
+            InputRecording recording = InputRecording.fromBytes(Files.readAllBytes(Paths.get(argsMap.get("replay"))));
+            runner.setReplayRecording(recording);
+            numOfTicks = recording.getLastTick() + 60;
+        }
+        if (argsMap.containsKey("ticks")) {
+            numOfTicks = Long.parseLong(argsMap.get("ticks"));
+        }
+        if (argsMap.containsKey("checksum")) {
+            runner.setChecksumInterval(Integer.parseInt(argsMap.get("checksum")));
+        }
+
+        runner.start(args[0]);
+
+        CommandProfiler profiler = null;
+        if (argsMap.containsKey("profile")) {
+            profiler = new CommandProfiler();
+            runner.setCommandProfiler(profiler);
+        }
+
+        long startTime = System.nanoTime();
+        long ticksRun = runner.runTicks(numOfTicks);
+        long elapsedNanos = Math.max(System.nanoTime() - startTime, 1);
+
+        runner.stop();
+
+        if (profiler != null) {
+            DesktopAgileRunner.writeProfile(argsMap.get("profile"), profiler);
+        }
+
+        List<Long> checksums = runner.getChecksums();
+        for (int i = 0; i < checksums.size(); i++) {
+            System.out.println(String.format("Checksum at tick %d: %08x", (i + 1) * runner.checksumInterval, checksums.get(i)));
+        }
+
+        double elapsedSeconds = elapsedNanos / 1000000000.0;
+        System.out.println(String.format("Ticks run:         %d (%.1f seconds of game time)", ticksRun, ticksRun / 60.0));
+        System.out.println(String.format("Interpreter ticks: %d", runner.getInterpreterTicksRun()));
+        System.out.println(String.format("Elapsed time:      %.3f seconds", elapsedSeconds));
+        System.out.println(String.format("Throughput:        %.0f ticks/second (%.1fx real time)",
+                ticksRun / elapsedSeconds, (ticksRun / 60.0) / elapsedSeconds));
+
+        System.exit(0);
+    }
+}
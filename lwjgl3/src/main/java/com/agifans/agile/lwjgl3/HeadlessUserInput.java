@@ -0,0 +1,50 @@
+package com.agifans.agile.lwjgl3;
+
+import com.agifans.agile.QuitAction;
+
+/**
+ * An implementation of UserInput for the HeadlessAgileRunner, where time is virtual.
+ * Rather than waiting in real time, the Interpreter thread lets virtual ticks pass, one
+ * at a time, by handing control back to the thread driving the ticks. Waits for a key
+ * press therefore end when a replayed key arrives or when the virtual clock reaches the
+ * timeout, and pauses last for exactly the given number of virtual ticks, however fast
+ * the CPU is.
+ */
+public class HeadlessUserInput extends DesktopUserInput {
+
+    /**
+     * The HeadlessAgileRunner that drives the virtual clock.
+     */
+    private HeadlessAgileRunner runner;
+
+    /**
+     * Sets the HeadlessAgileRunner that drives the virtual clock.
+     *
+     * @param runner The HeadlessAgileRunner that drives the virtual clock.
+     */
+    void setRunner(HeadlessAgileRunner runner) {
+        this.runner = runner;
+    }
+
+    @Override
+    protected void waitForTicks(int ticks) {
+        try {
+            for (int i = 0; i < ticks; i++) {
+                runner.awaitTick();
+            }
+        } catch (InterruptedException e) {
+            // Interrupt indicates AGILE is stopping, so throw QuitAction.
+            QuitAction.exit();
+        }
+    }
+
+    @Override
+    protected void waitForKeyPress(int timeoutMillis) throws InterruptedException {
+        // The timeout is rounded down to whole ticks, but always lets at least one tick pass.
+        int ticks = (timeoutMillis > 0? Math.max((timeoutMillis * 60) / 1000, 1) : Integer.MAX_VALUE);
+
+        for (int i = 0; (i < ticks) && keyPressQueueIsEmpty(); i++) {
+            runner.awaitTick();
+        }
+    }
+}
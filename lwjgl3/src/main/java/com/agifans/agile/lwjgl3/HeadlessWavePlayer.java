@@ -0,0 +1,70 @@
+package com.agifans.agile.lwjgl3;
+
+import com.agifans.agile.WavePlayer;
+
+/**
+ * An implementation of the WavePlayer interface that doesn't output any sound. Instead
+ * it works out how many ticks the WAV data would take to play and sets the end flag when
+ * the AGI total ticks reach that point. This keeps sound timing deterministic when the
+ * ticks are driven by a virtual clock, such as by the HeadlessAgileRunner. The sound
+ * state is synchronized since update() is invoked from the thread driving the ticks.
+ */
+public class HeadlessWavePlayer extends WavePlayer {
+
+    /**
+     * The size of the standard WAV header that prefixes the sample data.
+     */
+    private static final int WAV_HEADER_SIZE = 44;
+
+    /**
+     * Number of bytes of WAV data per tick, i.e. 44100Hz, 16 bit, stereo, at 60 ticks a second.
+     */
+    private static final int BYTES_PER_TICK = (44100 * 4) / 60;
+
+    /**
+     * The flag to set when the currently "playing" sound ends, or -1 if nothing is playing.
+     */
+    private int endFlag = -1;
+
+    /**
+     * The total ticks value at which the currently "playing" sound ends.
+     */
+    private int endTick;
+
+    @Override
+    public synchronized void playWaveData(byte[] waveData, int endFlag) {
+        this.endFlag = endFlag;
+        this.endTick = variableData.getTotalTicks() +
+                (Math.max(waveData.length - WAV_HEADER_SIZE, 0) / BYTES_PER_TICK);
+    }
+
+    /**
+     * Checks whether the currently "playing" sound has reached its end and, if so, sets
+     * its end flag. Should be invoked after every tick.
+     */
+    public synchronized void update() {
+        if ((endFlag >= 0) && (variableData.getTotalTicks() >= endTick)) {
+            variableData.setFlag(endFlag, true);
+            endFlag = -1;
+        }
+    }
+
+    @Override
+    public synchronized void stopPlaying(boolean wait) {
+        if (endFlag >= 0) {
+            // Stopping a sound sets the end flag, the same as it does for the Desktop.
+            variableData.setFlag(endFlag, true);
+            endFlag = -1;
+        }
+    }
+
+    @Override
+    public synchronized void reset() {
+        endFlag = -1;
+    }
+
+    @Override
+    public void dispose() {
+        // Nothing to dispose of.
+    }
+}
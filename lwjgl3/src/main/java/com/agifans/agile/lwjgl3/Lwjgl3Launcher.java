@@ -36,6 +36,12 @@ public class Lwjgl3Launcher {
     	        new DesktopUserInput(), new DesktopWavePlayer(), 
     	        new DesktopSavedGameStore(), new DesktopPixelData(), 
     	        new DesktopVariableData());
+    	if (argsMap.containsKey("record")) {
+    	    desktopAgileRunner.setRecordingFile(argsMap.get("record"));
+    	}
+    	if (argsMap.containsKey("profile")) {
+    	    desktopAgileRunner.setProfileFile(argsMap.get("profile"));
+    	}
         return new Lwjgl3Application(
                 new Agile(desktopAgileRunner, desktopDialogHandler, argsMap), 
         		getDefaultConfiguration());